@@ -0,0 +1,99 @@
+/* Commented package visibility check (Checkstyle plugin)
+    Copyright (C) 2012  Keita Kita
+
+    This library is free software; you can redistribute it and/or
+    modify it under the terms of the GNU Lesser General Public
+    License as published by the Free Software Foundation; either
+    version 2.1 of the License, or (at your option) any later version.
+
+    This library is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+    Lesser General Public License for more details.
+
+    You should have received a copy of the GNU Lesser General Public
+    License along with this library; if not, write to the Free Software
+    Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+package com.github.mikanbako.checkstyle.commentedpackagevisibilitycheck;
+
+import com.puppycrawl.tools.checkstyle.Checker;
+import com.puppycrawl.tools.checkstyle.ConfigurationLoader;
+import com.puppycrawl.tools.checkstyle.DefaultConfiguration;
+import com.puppycrawl.tools.checkstyle.PropertiesExpander;
+import com.puppycrawl.tools.checkstyle.TreeWalker;
+import com.puppycrawl.tools.checkstyle.api.CheckstyleException;
+import com.puppycrawl.tools.checkstyle.api.Configuration;
+
+/**
+ * Factory of {@link Checker} used by command line tools of this plugin.
+ *
+ * @author Keita Kita
+ */
+/* package */ final class CheckerFactory
+{
+    /**
+     * Constructor.
+     */
+    private CheckerFactory()
+    {
+        // no operation.
+    }
+
+    /**
+     * Create default configuration.
+     *
+     * The configuration contains only {@link CommentedPackageVisibilityCheck}
+     * with default properties.
+     *
+     * @return Default configuration.
+     */
+    /* package */ static Configuration createDefaultConfiguration()
+    {
+        final DefaultConfiguration checkerConfiguration =
+                new DefaultConfiguration("Checker");
+        final DefaultConfiguration treeWalkerConfiguration =
+                new DefaultConfiguration(TreeWalker.class.getName());
+        treeWalkerConfiguration.addChild(new DefaultConfiguration(
+                CommentedPackageVisibilityCheck.class.getName()));
+        checkerConfiguration.addChild(treeWalkerConfiguration);
+
+        return checkerConfiguration;
+    }
+
+    /**
+     * Load configuration.
+     *
+     * @param aConfigurationFile Path of configuration file.
+     *  If null, the default configuration is used.
+     * @return Loaded configuration.
+     * @throws CheckstyleException If the configuration cannot be loaded.
+     */
+    /* package */ static Configuration loadConfiguration(
+            String aConfigurationFile) throws CheckstyleException
+    {
+        if (aConfigurationFile == null) {
+            return createDefaultConfiguration();
+        }
+
+        return ConfigurationLoader.loadConfiguration(aConfigurationFile,
+                new PropertiesExpander(System.getProperties()));
+    }
+
+    /**
+     * Create checker.
+     *
+     * @param aConfiguration Configuration of the checker.
+     * @return Created checker.
+     * @throws CheckstyleException If the checker cannot be configured.
+     */
+    /* package */ static Checker create(Configuration aConfiguration)
+        throws CheckstyleException
+    {
+        final Checker checker = new Checker();
+        checker.setModuleClassLoader(CheckerFactory.class.getClassLoader());
+        checker.configure(aConfiguration);
+
+        return checker;
+    }
+}
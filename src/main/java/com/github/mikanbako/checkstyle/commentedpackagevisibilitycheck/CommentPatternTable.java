@@ -0,0 +1,155 @@
+/* Commented package visibility check (Checkstyle plugin)
+    Copyright (C) 2012  Keita Kita
+
+    This library is free software; you can redistribute it and/or
+    modify it under the terms of the GNU Lesser General Public
+    License as published by the Free Software Foundation; either
+    version 2.1 of the License, or (at your option) any later version.
+
+    This library is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+    Lesser General Public License for more details.
+
+    You should have received a copy of the GNU Lesser General Public
+    License along with this library; if not, write to the Free Software
+    Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+package com.github.mikanbako.checkstyle.commentedpackagevisibilitycheck;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+/**
+ * <p>Table of compiled patterns of package visibility comment.</p>
+ *
+ * <p>Patterns are compiled when the table is created and are looked up
+ * by token type of definition.</p>
+ *
+ * @author Keita Kita
+ */
+/* package */ final class CommentPatternTable
+{
+    /**
+     * Compiled patterns for one kind of definition.
+     */
+    /* package */ static final class CommentPatterns
+    {
+        /**
+         * Pattern of package visibility comment.
+         */
+        private final Pattern mPattern;
+
+        /**
+         * Pattern of package visibility comment including latter white space.
+         */
+        private final Pattern mPatternWithLatterWhiteSpace;
+
+        /**
+         * Constructor.
+         *
+         * @param aFormat Format of package visibility comment.
+         * @param aCompileFlags Flags to compile the format.
+         */
+        /* package */ CommentPatterns(String aFormat, int aCompileFlags)
+        {
+            mPattern = Pattern.compile(aFormat, aCompileFlags);
+            mPatternWithLatterWhiteSpace = Pattern.compile(
+                    String.format("(?:%s)\\s+", aFormat), aCompileFlags);
+        }
+
+        /**
+         * Get pattern of package visibility comment.
+         *
+         * @return Pattern of package visibility comment.
+         */
+        /* package */ Pattern getPattern()
+        {
+            return mPattern;
+        }
+
+        /**
+         * Get pattern of package visibility comment
+         * including latter white space.
+         *
+         * @return Pattern including latter white space.
+         */
+        /* package */ Pattern getPatternWithLatterWhiteSpace()
+        {
+            return mPatternWithLatterWhiteSpace;
+        }
+    }
+
+    /**
+     * Patterns indexed by token type.
+     */
+    private final CommentPatterns[] mPatternsByTokenType;
+
+    /**
+     * Whether latter white space is required for package visibility comment.
+     */
+    private final boolean mRequireLatterWhiteSpace;
+
+    /**
+     * Constructor.
+     *
+     * @param aTokenTypes Token types that the table handles.
+     * @param aDefaultFormat Format for token types that do not have
+     *  their own format.
+     * @param aFormatsByTokenType Formats of each token type.
+     * @param aCompileFlags Flags to compile formats.
+     * @param aRequireLatterWhiteSpace True if latter white space is required,
+     *  otherwise false.
+     */
+    /* package */ CommentPatternTable(int[] aTokenTypes, String aDefaultFormat,
+            Map<Integer, String> aFormatsByTokenType, int aCompileFlags,
+            boolean aRequireLatterWhiteSpace)
+    {
+        int maxTokenType = 0;
+        for (int tokenType : aTokenTypes) {
+            maxTokenType = Math.max(maxTokenType, tokenType);
+        }
+        mPatternsByTokenType = new CommentPatterns[maxTokenType + 1];
+
+        // Token types sharing the same format share the compiled patterns.
+        final Map<String, CommentPatterns> compiledPatterns =
+                new HashMap<String, CommentPatterns>();
+        for (int tokenType : aTokenTypes) {
+            String format = aFormatsByTokenType.get(tokenType);
+            if (format == null) {
+                format = aDefaultFormat;
+            }
+
+            CommentPatterns patterns = compiledPatterns.get(format);
+            if (patterns == null) {
+                patterns = new CommentPatterns(format, aCompileFlags);
+                compiledPatterns.put(format, patterns);
+            }
+            mPatternsByTokenType[tokenType] = patterns;
+        }
+
+        mRequireLatterWhiteSpace = aRequireLatterWhiteSpace;
+    }
+
+    /**
+     * Get patterns for the token type.
+     *
+     * @param aTokenType Token type of definition.
+     * @return Patterns for the token type.
+     */
+    /* package */ CommentPatterns get(int aTokenType)
+    {
+        return mPatternsByTokenType[aTokenType];
+    }
+
+    /**
+     * Whether latter white space is required for package visibility comment.
+     *
+     * @return True if latter white space is required, otherwise false.
+     */
+    /* package */ boolean isLatterWhiteSpaceRequired()
+    {
+        return mRequireLatterWhiteSpace;
+    }
+}
@@ -0,0 +1,173 @@
+/* Commented package visibility check (Checkstyle plugin)
+    Copyright (C) 2012  Keita Kita
+
+    This library is free software; you can redistribute it and/or
+    modify it under the terms of the GNU Lesser General Public
+    License as published by the Free Software Foundation; either
+    version 2.1 of the License, or (at your option) any later version.
+
+    This library is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+    Lesser General Public License for more details.
+
+    You should have received a copy of the GNU Lesser General Public
+    License along with this library; if not, write to the Free Software
+    Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+package com.github.mikanbako.checkstyle.commentedpackagevisibilitycheck;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Collections;
+import java.util.Properties;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
+
+/**
+ * <p>Pair of format and requireLatterWhiteSpace that replaces properties
+ * of the check.</p>
+ *
+ * <p>Settings are loaded from a properties file. Each key is a name of
+ * settings and a property name joined by '.'. The name is a directory for
+ * {@link DirectoryOverride} and a name of profile for {@link Profile}.</p>
+ *
+ * @author Keita Kita
+ */
+/* package */ final class CommentSettings
+{
+    /**
+     * Name of format property.
+     */
+    private static final String PROPERTY_FORMAT = "format";
+
+    /**
+     * Name of requireLatterWhiteSpace property.
+     */
+    private static final String PROPERTY_REQUIRE_LATTER_WHITE_SPACE =
+            "requireLatterWhiteSpace";
+
+    /**
+     * Format, or null if it is not specified.
+     */
+    private String mFormat;
+
+    /**
+     * Whether latter white space is required, or null if it is not
+     * specified.
+     */
+    private Boolean mRequireLatterWhiteSpace;
+
+    /**
+     * Constructor.
+     */
+    private CommentSettings()
+    {
+        // no operation.
+    }
+
+    /**
+     * Get format.
+     *
+     * @param aDefault Format used if it is not specified.
+     * @return Format.
+     */
+    /* package */ String getFormat(String aDefault)
+    {
+        return (mFormat == null) ? aDefault : mFormat;
+    }
+
+    /**
+     * Get whether latter white space is required.
+     *
+     * @param aDefault Value used if it is not specified.
+     * @return True if latter white space is required, otherwise false.
+     */
+    /* package */ boolean isLatterWhiteSpaceRequired(boolean aDefault)
+    {
+        return (mRequireLatterWhiteSpace == null)
+                ? aDefault
+                : mRequireLatterWhiteSpace.booleanValue();
+    }
+
+    /**
+     * Set property.
+     *
+     * @param aName Name of property.
+     * @param aValue Value of property.
+     * @throws IOException If the property is invalid.
+     */
+    private void setProperty(String aName, String aValue) throws IOException
+    {
+        if (PROPERTY_FORMAT.equals(aName)) {
+            try {
+                Pattern.compile(aValue);
+            }
+            catch (final PatternSyntaxException e) {
+                throw new IOException("unable to parse " + aValue, e);
+            }
+            mFormat = aValue;
+        }
+        else if (PROPERTY_REQUIRE_LATTER_WHITE_SPACE.equals(aName)) {
+            // Boolean.valueOf() silently treats typos as false.
+            if (Boolean.TRUE.toString().equalsIgnoreCase(aValue)) {
+                mRequireLatterWhiteSpace = Boolean.TRUE;
+            }
+            else if (Boolean.FALSE.toString().equalsIgnoreCase(aValue)) {
+                mRequireLatterWhiteSpace = Boolean.FALSE;
+            }
+            else {
+                throw new IOException("Not a boolean : " + aValue);
+            }
+        }
+        else {
+            throw new IOException("Unknown property : " + aName);
+        }
+    }
+
+    /**
+     * Load settings.
+     *
+     * @param aFile Properties file.
+     * @return Settings of each name in order of name.
+     * @throws IOException If I/O error occurs or the file is invalid.
+     */
+    /* package */ static SortedMap<String, CommentSettings> load(File aFile)
+        throws IOException
+    {
+        final Properties properties = new Properties();
+        final InputStream in = new FileInputStream(aFile);
+        try {
+            properties.load(in);
+        }
+        finally {
+            in.close();
+        }
+
+        final SortedMap<String, CommentSettings> settings =
+                new TreeMap<String, CommentSettings>();
+
+        for (String key : properties.stringPropertyNames()) {
+            final int separatorIndex = key.lastIndexOf('.');
+            if (separatorIndex <= 0) {
+                throw new IOException("Invalid key : " + key);
+            }
+
+            final String name = key.substring(0, separatorIndex);
+            CommentSettings currentSettings = settings.get(name);
+            if (currentSettings == null) {
+                currentSettings = new CommentSettings();
+                settings.put(name, currentSettings);
+            }
+
+            currentSettings.setProperty(key.substring(separatorIndex + 1),
+                    properties.getProperty(key));
+        }
+
+        return Collections.unmodifiableSortedMap(settings);
+    }
+}
@@ -17,7 +17,18 @@
  */
 package com.github.mikanbako.checkstyle.commentedpackagevisibilitycheck;
 
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
 
 import org.apache.commons.beanutils.ConversionException;
 
@@ -25,6 +36,7 @@ import com.puppycrawl.tools.checkstyle.api.DetailAST;
 import com.puppycrawl.tools.checkstyle.api.LineColumn;
 import com.puppycrawl.tools.checkstyle.api.Scope;
 import com.puppycrawl.tools.checkstyle.api.ScopeUtils;
+import com.puppycrawl.tools.checkstyle.api.SeverityLevel;
 import com.puppycrawl.tools.checkstyle.api.TokenTypes;
 import com.puppycrawl.tools.checkstyle.checks.AbstractFormatCheck;
 
@@ -52,6 +64,81 @@ public final class CommentedPackageVisibilityCheck extends AbstractFormatCheck
      */
     private boolean mRequireLatterWhiteSpace = true;
 
+    /**
+     * Format for type definitions. Null if the format is not specified.
+     */
+    private String mClassFormat;
+
+    /**
+     * Format for field definitions. Null if the format is not specified.
+     */
+    private String mFieldFormat;
+
+    /**
+     * Format for method definitions. Null if the format is not specified.
+     */
+    private String mMethodFormat;
+
+    /**
+     * Format for constructor definitions. Null if the format is not specified.
+     */
+    private String mCtorFormat;
+
+    /**
+     * Overrides of properties for directories.
+     */
+    private List<DirectoryOverride> mDirectoryOverrides =
+            Collections.emptyList();
+
+    /**
+     * Compiled patterns of package visibility comment for files
+     * without overrides.
+     */
+    private CommentPatternTable mDefaultPatternTable;
+
+    /**
+     * Compiled patterns of package visibility comment of
+     * overridden directories.
+     */
+    private PathTrie<CommentPatternTable> mOverriddenPatternTables;
+
+    /**
+     * Compiled patterns of package visibility comment for the current file.
+     */
+    private CommentPatternTable mPatternTable;
+
+    /**
+     * Whether visibility is checked with scopes of enclosing definitions.
+     */
+    private boolean mCheckEffectiveVisibility;
+
+    /**
+     * Resolved scopes of enclosing definitions in the current tree.
+     */
+    private final Map<DetailAST, Scope> mEnclosingScopes =
+            new HashMap<DetailAST, Scope>();
+
+    /**
+     * Profiles evaluated in addition to the properties of the check.
+     */
+    private List<Profile> mProfiles = Collections.emptyList();
+
+    /**
+     * Compiled patterns of package visibility comment of each profile.
+     */
+    private CommentPatternTable[] mProfilePatternTables;
+
+    /**
+     * Count of violations of each profile since the check was initialized.
+     */
+    private int[] mProfileViolationCounts = new int[0];
+
+    /**
+     * File to write count of violations of each profile when the check is
+     * destroyed. Null if the counts are not written.
+     */
+    private File mProfilesReportFile;
+
     /**
      * Constructor.
      *
@@ -75,6 +162,88 @@ public final class CommentedPackageVisibilityCheck extends AbstractFormatCheck
         };
     }
 
+    @Override
+    public void init()
+    {
+        final Map<Integer, String> formatsByTokenType =
+                new HashMap<Integer, String>();
+        putFormat(formatsByTokenType, TokenTypes.CLASS_DEF, mClassFormat);
+        putFormat(formatsByTokenType, TokenTypes.ENUM_DEF, mClassFormat);
+        putFormat(formatsByTokenType, TokenTypes.INTERFACE_DEF, mClassFormat);
+        putFormat(formatsByTokenType, TokenTypes.VARIABLE_DEF, mFieldFormat);
+        putFormat(formatsByTokenType, TokenTypes.METHOD_DEF, mMethodFormat);
+        putFormat(formatsByTokenType, TokenTypes.CTOR_DEF, mCtorFormat);
+
+        mDefaultPatternTable = new CommentPatternTable(getDefaultTokens(),
+                getFormat(), formatsByTokenType, getRegexp().flags(),
+                mRequireLatterWhiteSpace);
+        mPatternTable = mDefaultPatternTable;
+
+        final PathTrie<DirectoryOverride> overrides =
+                new PathTrie<DirectoryOverride>();
+        for (DirectoryOverride override : mDirectoryOverrides) {
+            overrides.put(override.getDirectory(), override);
+        }
+
+        // Overrides of inner directories take precedence over
+        // outer directories.
+        // Format of an override is used for all kinds of definitions
+        // like format of a profile.
+        mOverriddenPatternTables = new PathTrie<CommentPatternTable>();
+        for (DirectoryOverride override : mDirectoryOverrides) {
+            String format = null;
+            boolean requireLatterWhiteSpace = mRequireLatterWhiteSpace;
+            for (DirectoryOverride outerOverride
+                    : overrides.getAll(override.getDirectory()))
+            {
+                format = outerOverride.getFormat(format);
+                requireLatterWhiteSpace = outerOverride.
+                        isLatterWhiteSpaceRequired(requireLatterWhiteSpace);
+            }
+
+            mOverriddenPatternTables.put(override.getDirectory(),
+                    new CommentPatternTable(getDefaultTokens(),
+                            (format == null) ? getFormat() : format,
+                            (format == null)
+                                ? formatsByTokenType
+                                : Collections.<Integer, String>emptyMap(),
+                            getRegexp().flags(), requireLatterWhiteSpace));
+        }
+
+        mProfilePatternTables = new CommentPatternTable[mProfiles.size()];
+        mProfileViolationCounts = new int[mProfiles.size()];
+        for (int i = 0; i < mProfilePatternTables.length; i++) {
+            // Format of the profile is used for all kinds of definitions.
+            // Otherwise formats of the check are used.
+            final Profile profile = mProfiles.get(i);
+            final String profileFormat = profile.getFormat(null);
+            mProfilePatternTables[i] = new CommentPatternTable(
+                    getDefaultTokens(),
+                    (profileFormat == null) ? getFormat() : profileFormat,
+                    (profileFormat == null)
+                        ? formatsByTokenType
+                        : Collections.<Integer, String>emptyMap(),
+                    getRegexp().flags(),
+                    profile.isLatterWhiteSpaceRequired(
+                            mRequireLatterWhiteSpace));
+        }
+    }
+
+    /**
+     * Put format of the token type if the format is specified.
+     *
+     * @param aFormatsByTokenType Map to put the format.
+     * @param aTokenType Token type.
+     * @param aFormat Format. Null if the format is not specified.
+     */
+    private static void putFormat(Map<Integer, String> aFormatsByTokenType,
+            int aTokenType, String aFormat)
+    {
+        if (aFormat != null) {
+            aFormatsByTokenType.put(aTokenType, aFormat);
+        }
+    }
+
     /**
      * Whether modifier represents package visibility.
      *
@@ -96,6 +265,110 @@ public final class CommentedPackageVisibilityCheck extends AbstractFormatCheck
         return scope == Scope.PACKAGE;
     }
 
+    /**
+     * Get the nearest node that encloses the definition.
+     *
+     * The node is one of the below.
+     *
+     * <ul>
+     *  <li>A definition of class, interface, enum or annotation.</li>
+     *  <li>A creation of anonymous class or an enum constant with body.</li>
+     *  <li>A block of code that contains local class.</li>
+     * </ul>
+     *
+     * @param aDefinitionAST AST of definition.
+     * @return The enclosing node, or null if the definition is top level.
+     */
+    private static DetailAST getEnclosingAST(DetailAST aDefinitionAST)
+    {
+        for (DetailAST currentAST = aDefinitionAST.getParent();
+                currentAST != null; currentAST = currentAST.getParent())
+        {
+            switch (currentAST.getType()) {
+            case TokenTypes.CLASS_DEF:
+            case TokenTypes.INTERFACE_DEF:
+            case TokenTypes.ENUM_DEF:
+            case TokenTypes.ANNOTATION_DEF:
+            case TokenTypes.LITERAL_NEW:
+            case TokenTypes.ENUM_CONSTANT_DEF:
+            case TokenTypes.SLIST:
+                return currentAST;
+            default:
+                break;
+            }
+        }
+
+        return null;
+    }
+
+    /**
+     * Get effective scope of the enclosing node of the definition.
+     *
+     * The scope is cached for each enclosing node.
+     *
+     * @param aDefinitionAST AST of definition.
+     * @return Effective scope of the enclosing node.
+     */
+    private Scope getEnclosingScope(DetailAST aDefinitionAST)
+    {
+        final DetailAST enclosingAST = getEnclosingAST(aDefinitionAST);
+        if (enclosingAST == null) {
+            return Scope.PUBLIC;
+        }
+
+        Scope scope = mEnclosingScopes.get(enclosingAST);
+        if (scope == null) {
+            scope = resolveEffectiveScope(enclosingAST);
+            mEnclosingScopes.put(enclosingAST, scope);
+        }
+
+        return scope;
+    }
+
+    /**
+     * Resolve effective scope of the enclosing node.
+     *
+     * @param aEnclosingAST AST of the enclosing node.
+     * @return Effective scope of the enclosing node.
+     */
+    private Scope resolveEffectiveScope(DetailAST aEnclosingAST)
+    {
+        final Scope declaredScope;
+        switch (aEnclosingAST.getType()) {
+        case TokenTypes.LITERAL_NEW:
+        case TokenTypes.ENUM_CONSTANT_DEF:
+        case TokenTypes.SLIST:
+            // Anonymous class and local class are not visible from package.
+            return Scope.ANONINNER;
+        default:
+            declaredScope = ScopeUtils.inInterfaceOrAnnotationBlock(
+                        aEnclosingAST)
+                    ? Scope.PUBLIC
+                    : ScopeUtils.getScopeFromMods(aEnclosingAST.findFirstToken(
+                            TokenTypes.MODIFIERS));
+            break;
+        }
+
+        final Scope surroundingScope = getEnclosingScope(aEnclosingAST);
+
+        return declaredScope.isIn(surroundingScope)
+                ? surroundingScope
+                : declaredScope;
+    }
+
+    @Override
+    public void beginTree(DetailAST aRootAST)
+    {
+        mEnclosingScopes.clear();
+
+        final CommentPatternTable overriddenPatternTable =
+                mOverriddenPatternTables.get(
+                        new File(getFileContents().getFilename()));
+        mPatternTable = (overriddenPatternTable == null)
+                ? mDefaultPatternTable
+                : overriddenPatternTable;
+    }
+
     @Override
     public void visitToken(DetailAST aAST)
     {
@@ -103,14 +376,119 @@ public final class CommentedPackageVisibilityCheck extends AbstractFormatCheck
             return;
         }
 
-        if (isModifierPackage(aAST)) {
-            checkPackageVisibilityCommentExists(aAST);
+        // The comment is meaningless if the definition is not visible
+        // from package regardless of its modifier. A comment that
+        // contradicts the modifier is still checked.
+        final boolean packageVisibility = isModifierPackage(aAST);
+        if (packageVisibility && mCheckEffectiveVisibility
+                && !getEnclosingScope(aAST).isIn(Scope.PACKAGE))
+        {
+            return;
         }
-        else {
-            checkInappropiratePackageVisibilityComment(aAST);
+
+        // The searching range is shared by the check and all profiles.
+        final String target = getCheckingTargetString(
+                getStartSearchingPosition(aAST), getEndSearchingPosition(aAST));
+        final String ident = aAST.findFirstToken(TokenTypes.IDENT).getText();
+
+        final String messageKey =
+                findViolation(mPatternTable, aAST, packageVisibility, target);
+        if (messageKey != null) {
+            log(aAST.getLineNo(), messageKey, ident);
+        }
+
+        for (int i = 0; i < mProfilePatternTables.length; i++) {
+            final String profileMessageKey = findViolation(
+                    mProfilePatternTables[i], aAST, packageVisibility, target);
+            if (profileMessageKey != null) {
+                mProfileViolationCounts[i]++;
+                logAsInfo(aAST.getLineNo(), "profile." + profileMessageKey,
+                        mProfiles.get(i).getName(), ident);
+            }
+        }
+    }
+
+    /**
+     * Log message at info severity.
+     *
+     * Violations of profiles are not violations of the check, so they
+     * must not be counted as errors of the audit.
+     *
+     * @param aLineNo Line number.
+     * @param aKey Key of message.
+     * @param aArgs Arguments of message.
+     */
+    private void logAsInfo(int aLineNo, String aKey, Object... aArgs)
+    {
+        final String severity = getSeverity();
+        setSeverity(SeverityLevel.INFO.getName());
+        try {
+            log(aLineNo, aKey, aArgs);
+        }
+        finally {
+            setSeverity(severity);
+        }
+    }
+
+    @Override
+    public void destroy()
+    {
+        if (mProfilesReportFile != null) {
+            try {
+                writeProfilesReport(mProfilesReportFile);
+            }
+            catch (final IOException e) {
+                throw new IllegalStateException(
+                        "unable to write " + mProfilesReportFile, e);
+            }
+        }
+
+        super.destroy();
+    }
+
+    /**
+     * Write count of violations of each profile.
+     *
+     * Each line is a name of profile and the count joined by '='.
+     *
+     * @param aFile File to write.
+     * @throws IOException If I/O error occurs.
+     */
+    private void writeProfilesReport(File aFile) throws IOException
+    {
+        final Writer writer =
+                new OutputStreamWriter(new FileOutputStream(aFile), "UTF-8");
+        try {
+            for (Map.Entry<String, Integer> entry
+                    : getProfileViolationCounts().entrySet())
+            {
+                writer.write(String.format(
+                        "%s=%d%n", entry.getKey(), entry.getValue()));
+            }
+        }
+        finally {
+            writer.close();
         }
     }
 
+    /**
+     * Get count of violations of each profile since the check was
+     * initialized.
+     *
+     * @return Count of violations of each profile in order of name.
+     */
+    public Map<String, Integer> getProfileViolationCounts()
+    {
+        final Map<String, Integer> counts =
+                new LinkedHashMap<String, Integer>();
+        for (int i = 0; i < mProfileViolationCounts.length; i++) {
+            counts.put(mProfiles.get(i).getName(),
+                    mProfileViolationCounts[i]);
+        }
+
+        return Collections.unmodifiableMap(counts);
+    }
+
     /**
      * Set whether latter white space is required for
      * package visibility comment.
@@ -123,82 +501,170 @@ public final class CommentedPackageVisibilityCheck extends AbstractFormatCheck
     }
 
     /**
-     * Get regexp including latter white space.
+     * Set whether visibility is checked with scopes of
+     * enclosing definitions.
+     *
+     * If true, package visibility comments of definitions in private
+     * classes, anonymous classes and local classes are not required.
+     * Comments that contradict modifiers are still reported.
      *
-     * @return regexp including latter white space.
+     * @param aChecked True if visibility is checked with scopes of
+     *  enclosing definitions, otherwise false.
      */
-    private Pattern getRegexpWithLatterWhiteSpace()
+    public void setCheckEffectiveVisibility(boolean aChecked)
     {
-        return Pattern.compile(String.format("(?:%s)\\s+", getFormat()),
-                getRegexp().flags());
+        mCheckEffectiveVisibility = aChecked;
     }
 
     /**
-     * Check whether comment representing package visibility exists.
+     * Set file of overrides of properties for directories.
      *
-     * @param aPackageScopeDefinitionAST AST of definition.
+     * @param aFile Properties file of overrides.
+     * @throws ConversionException If the file cannot be loaded.
      */
-    private void checkPackageVisibilityCommentExists(
-            DetailAST aPackageScopeDefinitionAST)
+    public void setOverridesFile(String aFile) throws ConversionException
     {
-        final Pattern commentPattern = mRequireLatterWhiteSpace
-                ? getRegexpWithLatterWhiteSpace()
-                : getRegexp();
-
-        // Calculate searching range.
-        final LineColumn startSearchingPosition =
-                getStartSearchingPosition(aPackageScopeDefinitionAST);
-        final LineColumn endSearchingPosition =
-                getEndSearchingPosition(aPackageScopeDefinitionAST);
-
-        if (!existsPackageVisibilityComment(
-                commentPattern, startSearchingPosition, endSearchingPosition))
-        {
-            // Log that there is not package visibility comment.
-
-            final String ident = aPackageScopeDefinitionAST.findFirstToken(
-                    TokenTypes.IDENT).getText();
-
-            final String messageKey =
-                (mRequireLatterWhiteSpace
-                        && existsPackageVisibilityComment(getRegexp(),
-                                startSearchingPosition, endSearchingPosition))
-                    ? "packageVisibilityComment.noLetterWhiteSpace"
-                    : "noPackageVisibilityComment";
-            log(aPackageScopeDefinitionAST.getLineNo(), messageKey, ident);
+        try {
+            mDirectoryOverrides = DirectoryOverride.load(new File(aFile));
+        }
+        catch (final IOException e) {
+            throw new ConversionException("unable to load " + aFile, e);
         }
     }
 
     /**
-     * Check whether there is inappropirate package visibility comment.
+     * Set file of profiles evaluated in addition to the properties
+     * of the check.
      *
-     * For example, a method has "public" modifier and package visibility
-     * comment.
+     * @param aFile Properties file of profiles.
+     * @throws ConversionException If the file cannot be loaded.
+     */
+    public void setProfilesFile(String aFile) throws ConversionException
+    {
+        try {
+            mProfiles = Profile.load(new File(aFile));
+        }
+        catch (final IOException e) {
+            throw new ConversionException("unable to load " + aFile, e);
+        }
+    }
+
+    /**
+     * Set file to write count of violations of each profile when
+     * the audit finishes.
      *
-     * @param aNonPackageVisibilityDefinitionAST AST that represents definition
-     *  that is not package visibility.
+     * @param aFile File to write.
      */
-    private void checkInappropiratePackageVisibilityComment(
-            DetailAST aNonPackageVisibilityDefinitionAST)
+    public void setProfilesReportFile(String aFile)
     {
-        // Calculate searching range.
-        final LineColumn startSearchingPosition =
-                getStartSearchingPosition(aNonPackageVisibilityDefinitionAST);
-        final LineColumn endSearchingPosition =
-                getEndSearchingPosition(aNonPackageVisibilityDefinitionAST);
-
-        if (existsPackageVisibilityComment(
-                getRegexp(), startSearchingPosition, endSearchingPosition))
-        {
-            // Log that there are explicit modifier and
-            // package visibility comment.
+        mProfilesReportFile = new File(aFile);
+    }
+
+    /**
+     * Set format for type definitions.
+     *
+     * Type definitions are classes, interfaces and enums.
+     *
+     * @param aFormat Format for type definitions.
+     * @throws ConversionException If the format is invalid.
+     */
+    public void setClassFormat(String aFormat) throws ConversionException
+    {
+        mClassFormat = validateFormat(aFormat);
+    }
+
+    /**
+     * Set format for field definitions.
+     *
+     * @param aFormat Format for field definitions.
+     * @throws ConversionException If the format is invalid.
+     */
+    public void setFieldFormat(String aFormat) throws ConversionException
+    {
+        mFieldFormat = validateFormat(aFormat);
+    }
+
+    /**
+     * Set format for method definitions.
+     *
+     * @param aFormat Format for method definitions.
+     * @throws ConversionException If the format is invalid.
+     */
+    public void setMethodFormat(String aFormat) throws ConversionException
+    {
+        mMethodFormat = validateFormat(aFormat);
+    }
+
+    /**
+     * Set format for constructor definitions.
+     *
+     * @param aFormat Format for constructor definitions.
+     * @throws ConversionException If the format is invalid.
+     */
+    public void setCtorFormat(String aFormat) throws ConversionException
+    {
+        mCtorFormat = validateFormat(aFormat);
+    }
+
+    /**
+     * Validate format.
+     *
+     * @param aFormat Format to validate.
+     * @return The format.
+     * @throws ConversionException If the format is invalid.
+     */
+    private static String validateFormat(String aFormat)
+        throws ConversionException
+    {
+        try {
+            Pattern.compile(aFormat);
+        }
+        catch (final PatternSyntaxException e) {
+            throw new ConversionException("unable to parse " + aFormat, e);
+        }
+
+        return aFormat;
+    }
+
+    /**
+     * Find violation of the definition.
+     *
+     * @param aPatternTable Compiled patterns of package visibility comment.
+     * @param aDefinitionAST AST of definition.
+     * @param aPackageVisibility True if the definition has package
+     *  visibility, otherwise false.
+     * @param aTarget String of searching range of the definition.
+     * @return Key of message of the violation, or null if there is
+     *  no violation.
+     */
+    private static String findViolation(CommentPatternTable aPatternTable,
+            DetailAST aDefinitionAST, boolean aPackageVisibility,
+            String aTarget)
+    {
+        final CommentPatternTable.CommentPatterns patterns =
+                aPatternTable.get(aDefinitionAST.getType());
 
-            final String ident = aNonPackageVisibilityDefinitionAST.
-                    findFirstToken(TokenTypes.IDENT).getText();
+        if (!aPackageVisibility) {
+            // For example, a method has "public" modifier and
+            // package visibility comment.
+            return patterns.getPattern().matcher(aTarget).find()
+                    ? "packageVisibilityComment.modifierExists"
+                    : null;
+        }
 
-            log(aNonPackageVisibilityDefinitionAST.getLineNo(),
-                    "packageVisibilityComment.modifierExists", ident);
+        final boolean requireLatterWhiteSpace =
+                aPatternTable.isLatterWhiteSpaceRequired();
+        final Pattern commentPattern = requireLatterWhiteSpace
+                ? patterns.getPatternWithLatterWhiteSpace()
+                : patterns.getPattern();
+        if (commentPattern.matcher(aTarget).find()) {
+            return null;
         }
+
+        return (requireLatterWhiteSpace
+                    && patterns.getPattern().matcher(aTarget).find())
+                ? "packageVisibilityComment.noLetterWhiteSpace"
+                : "noPackageVisibilityComment";
     }
 
     /**
@@ -215,7 +681,7 @@ public final class CommentedPackageVisibilityCheck extends AbstractFormatCheck
      * @param aDefinitionAST AST of definition.
      * @return Position to start searching.
      */
-    private static LineColumn getStartSearchingPosition(
+    /* package */ static LineColumn getStartSearchingPosition(
             DetailAST aDefinitionAST)
     {
         final DetailAST previousSiblingAST =
@@ -248,7 +714,8 @@ public final class CommentedPackageVisibilityCheck extends AbstractFormatCheck
      * @param aDefinitionAST AST of definition.
      * @return Position to end searching.
      */
-    private static LineColumn getEndSearchingPosition(DetailAST aDefinitionAST)
+    /* package */ static LineColumn getEndSearchingPosition(
+            DetailAST aDefinitionAST)
     {
         final DetailAST modifierAST =
                 aDefinitionAST.findFirstToken(TokenTypes.IDENT);
@@ -292,20 +759,4 @@ public final class CommentedPackageVisibilityCheck extends AbstractFormatCheck
 
         return targetStringBuilder.toString();
     }
-
-    /**
-     * Whether package visibility comment is exists.
-     *
-     * @param aPattern Pattern of package visibility comment.
-     * @param aStart Start position of checking target.
-     * @param aEnd End position of checking target.
-     * @return True if package visibility comment exists, otherwise false.
-     */
-    private boolean existsPackageVisibilityComment(
-            Pattern aPattern, LineColumn aStart, LineColumn aEnd)
-    {
-        final String target = getCheckingTargetString(aStart, aEnd);
-
-        return aPattern.matcher(target).find();
-    }
 }
@@ -0,0 +1,456 @@
+/* Commented package visibility check (Checkstyle plugin)
+    Copyright (C) 2012  Keita Kita
+
+    This library is free software; you can redistribute it and/or
+    modify it under the terms of the GNU Lesser General Public
+    License as published by the Free Software Foundation; either
+    version 2.1 of the License, or (at your option) any later version.
+
+    This library is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+    Lesser General Public License for more details.
+
+    You should have received a copy of the GNU Lesser General Public
+    License along with this library; if not, write to the Free Software
+    Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+package com.github.mikanbako.checkstyle.commentedpackagevisibilitycheck;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.SortedSet;
+import java.util.TreeSet;
+
+import antlr.RecognitionException;
+import antlr.TokenStreamException;
+
+import com.puppycrawl.tools.checkstyle.TreeWalker;
+import com.puppycrawl.tools.checkstyle.api.CheckstyleException;
+import com.puppycrawl.tools.checkstyle.api.DetailAST;
+import com.puppycrawl.tools.checkstyle.api.FileContents;
+import com.puppycrawl.tools.checkstyle.api.FileText;
+import com.puppycrawl.tools.checkstyle.api.LineColumn;
+import com.puppycrawl.tools.checkstyle.api.LocalizedMessage;
+import com.puppycrawl.tools.checkstyle.api.LocalizedMessages;
+
+/**
+ * <p>Checker for editors that checks only the lines affected by an edit.</p>
+ *
+ * <p>The file is parsed again as a whole, but the package visibility
+ * comment is searched only for definitions whose searching range or
+ * enclosing definitions are changed by the edit. Violations of the other
+ * definitions are taken over from the previous result and moved by the
+ * number of inserted or deleted lines.</p>
+ *
+ * @author Keita Kita
+ */
+public final class CommentedPackageVisibilityIncrementalChecker
+{
+    /**
+     * Configured and initialized check.
+     */
+    private final CommentedPackageVisibilityCheck mCheck;
+
+    /**
+     * Token types that the check visits.
+     */
+    private final Set<Integer> mTokenTypes = new HashSet<Integer>();
+
+    /**
+     * Constructor.
+     *
+     * @param aCheck Configured and initialized check. The checker uses
+     *  the check exclusively.
+     * @throws IllegalArgumentException If the check has profiles.
+     */
+    public CommentedPackageVisibilityIncrementalChecker(
+            CommentedPackageVisibilityCheck aCheck)
+    {
+        // Counts of profiles would grow with every check of the same file.
+        if (!aCheck.getProfileViolationCounts().isEmpty()) {
+            throw new IllegalArgumentException(
+                    "Profiles are not supported by incremental check.");
+        }
+
+        mCheck = aCheck;
+        for (int tokenType : aCheck.getDefaultTokens()) {
+            mTokenTypes.add(tokenType);
+        }
+    }
+
+    /**
+     * Check the whole file.
+     *
+     * @param aFileName Name of file.
+     * @param aText Text of file.
+     * @return Result of the check.
+     * @throws CheckstyleException If the text cannot be parsed.
+     */
+    public IncrementalCheckResult check(String aFileName, String aText)
+        throws CheckstyleException
+    {
+        final int[] lineStartOffsets = getLineStartOffsets(aText);
+        final FileContents contents =
+                createContents(aFileName, aText, lineStartOffsets);
+        final DetailAST rootAST = parse(contents);
+
+        final List<DetailAST> definitions = new ArrayList<DetailAST>();
+        final Map<Integer, List<DefinitionSignature>> lineSignatures =
+                collectDefinitions(rootAST, definitions);
+
+        final SortedSet<LocalizedMessage> violations =
+                new TreeSet<LocalizedMessage>();
+        evaluate(contents, rootAST, definitions, lineSignatures.keySet(),
+                violations);
+
+        return new IncrementalCheckResult(
+                aFileName, lineStartOffsets, lineSignatures, violations);
+    }
+
+    /**
+     * Check the file after an edit.
+     *
+     * The edit replaced the range from aStart to aEnd of the previous text
+     * with aReplacementLength characters.
+     *
+     * @param aPrevious Result of the previous check of the file.
+     * @param aText Text of file after the edit.
+     * @param aStart Offset of the start of the replaced range.
+     * @param aEnd Offset of the end of the replaced range in the previous
+     *  text. The end is exclusive.
+     * @param aReplacementLength Length of the text that replaced the range.
+     * @return Result of the check.
+     * @throws CheckstyleException If the text cannot be parsed.
+     * @throws IllegalArgumentException If the edit does not match the texts.
+     */
+    public IncrementalCheckResult recheck(IncrementalCheckResult aPrevious,
+            String aText, int aStart, int aEnd, int aReplacementLength)
+        throws CheckstyleException
+    {
+        final int previousLength = aPrevious.getTextLength();
+        if ((aStart < 0) || (aStart > aEnd) || (aEnd > previousLength)
+                || (aReplacementLength < 0)
+                || (aText.length()
+                        != previousLength - (aEnd - aStart)
+                            + aReplacementLength))
+        {
+            throw new IllegalArgumentException(String.format(
+                    "Invalid edit : %d-%d, %d", aStart, aEnd,
+                    aReplacementLength));
+        }
+
+        final int[] lineStartOffsets = getLineStartOffsets(aText);
+        final FileContents contents = createContents(
+                aPrevious.getFileName(), aText, lineStartOffsets);
+        final DetailAST rootAST = parse(contents);
+
+        final List<DetailAST> definitions = new ArrayList<DetailAST>();
+        final Map<Integer, List<DefinitionSignature>> lineSignatures =
+                collectDefinitions(rootAST, definitions);
+
+        // Range of the edit in the previous text and in the text.
+        final LineColumn editStart = IncrementalCheckResult.toLineColumn(
+                lineStartOffsets, aStart);
+        final LineColumn editEnd = IncrementalCheckResult.toLineColumn(
+                lineStartOffsets, aStart + aReplacementLength);
+        final int previousEditEndLine =
+                aPrevious.toLineColumn(aEnd).getLine();
+        final int lineDelta = editEnd.getLine() - previousEditEndLine;
+
+        final Set<Integer> evaluatedLines = new HashSet<Integer>();
+        for (DetailAST definition : definitions) {
+            final int lineNo = definition.getLineNo();
+            final int previousLineNo = (lineNo < editStart.getLine())
+                    ? lineNo
+                    : lineNo - lineDelta;
+            if (isInLines(lineNo, editStart.getLine(), editEnd.getLine())
+                    || overlaps(definition, editStart, editEnd)
+                    || !lineSignatures.get(lineNo).equals(aPrevious.
+                            getLineSignatures().get(previousLineNo)))
+            {
+                evaluatedLines.add(lineNo);
+            }
+        }
+
+        final SortedSet<LocalizedMessage> violations =
+                takeOverViolations(aPrevious, lineSignatures, evaluatedLines,
+                        editStart.getLine(), previousEditEndLine, lineDelta);
+        evaluate(contents, rootAST, definitions, evaluatedLines, violations);
+
+        return new IncrementalCheckResult(aPrevious.getFileName(),
+                lineStartOffsets, lineSignatures, violations);
+    }
+
+    /**
+     * Take over violations of the previous result that are not affected
+     * by the edit.
+     *
+     * @param aPrevious Result of the previous check.
+     * @param aLineSignatures Signatures of definitions of each line of
+     *  the text.
+     * @param aEvaluatedLines Lines to evaluate again.
+     * @param aEditStartLine Line of the start of the edit.
+     * @param aPreviousEditEndLine Line of the end of the edit in the
+     *  previous text.
+     * @param aLineDelta Number of lines that the edit inserted.
+     * @return Violations taken over.
+     */
+    private SortedSet<LocalizedMessage> takeOverViolations(
+            IncrementalCheckResult aPrevious,
+            Map<Integer, List<DefinitionSignature>> aLineSignatures,
+            Set<Integer> aEvaluatedLines, int aEditStartLine,
+            int aPreviousEditEndLine, int aLineDelta)
+    {
+        final SortedSet<LocalizedMessage> violations =
+                new TreeSet<LocalizedMessage>();
+        for (LocalizedMessage violation : aPrevious.getViolations()) {
+            final int previousLineNo = violation.getLineNo();
+            if (isInLines(previousLineNo,
+                    aEditStartLine, aPreviousEditEndLine))
+            {
+                continue;
+            }
+
+            final boolean moved = (previousLineNo > aPreviousEditEndLine)
+                    && (aLineDelta != 0);
+            final int lineNo = (previousLineNo > aPreviousEditEndLine)
+                    ? previousLineNo + aLineDelta
+                    : previousLineNo;
+            if (aEvaluatedLines.contains(lineNo)
+                    || !aLineSignatures.containsKey(lineNo))
+            {
+                continue;
+            }
+
+            violations.add(moved
+                    ? Violations.moveTo(violation, lineNo, mCheck.getClass())
+                    : violation);
+        }
+
+        return violations;
+    }
+
+    /**
+     * Apply the check to definitions at the lines.
+     *
+     * @param aContents Contents of file.
+     * @param aRootAST Root AST of file.
+     * @param aDefinitions Definitions of file.
+     * @param aLines Lines of definitions to check.
+     * @param aViolations Violations to add found violations to.
+     */
+    private void evaluate(FileContents aContents, DetailAST aRootAST,
+            List<DetailAST> aDefinitions, Set<Integer> aLines,
+            SortedSet<LocalizedMessage> aViolations)
+    {
+        final LocalizedMessages messages = new LocalizedMessages();
+        mCheck.setMessages(messages);
+        mCheck.setFileContents(aContents);
+        mCheck.beginTree(aRootAST);
+        for (DetailAST definition : aDefinitions) {
+            if (aLines.contains(definition.getLineNo())) {
+                mCheck.visitToken(definition);
+            }
+        }
+        mCheck.finishTree(aRootAST);
+
+        aViolations.addAll(messages.getMessages());
+    }
+
+    /**
+     * Collect definitions that the check visits in order of the tree,
+     * and their signatures for each line.
+     *
+     * @param aRootAST Root AST of file.
+     * @param aDefinitions List to add definitions to.
+     * @return Signatures of definitions of each line in order of the tree.
+     */
+    private Map<Integer, List<DefinitionSignature>> collectDefinitions(
+            DetailAST aRootAST, List<DetailAST> aDefinitions)
+    {
+        final Map<Integer, List<DefinitionSignature>> lineSignatures =
+                new HashMap<Integer, List<DefinitionSignature>>();
+        final Map<DetailAST, DefinitionSignature.Enclosing> enclosingCache =
+                new HashMap<DetailAST, DefinitionSignature.Enclosing>();
+
+        // Visit in pre-order like TreeWalker.
+        DetailAST currentAST = aRootAST;
+        while (currentAST != null) {
+            if (mTokenTypes.contains(currentAST.getType())) {
+                aDefinitions.add(currentAST);
+
+                final int lineNo = currentAST.getLineNo();
+                List<DefinitionSignature> signatures =
+                        lineSignatures.get(lineNo);
+                if (signatures == null) {
+                    signatures = new ArrayList<DefinitionSignature>();
+                    lineSignatures.put(lineNo, signatures);
+                }
+                signatures.add(
+                        new DefinitionSignature(currentAST, enclosingCache));
+            }
+
+            DetailAST nextAST = currentAST.getFirstChild();
+            while ((nextAST == null) && (currentAST != null)) {
+                nextAST = currentAST.getNextSibling();
+                currentAST = currentAST.getParent();
+            }
+            currentAST = nextAST;
+        }
+
+        return lineSignatures;
+    }
+
+    /**
+     * Whether the searching range of the definition overlaps the edit.
+     *
+     * @param aDefinitionAST AST of definition.
+     * @param aEditStart Start of the edit.
+     * @param aEditEnd End of the edit in the text.
+     * @return True if the searching range overlaps the edit,
+     *  otherwise false.
+     */
+    private static boolean overlaps(DetailAST aDefinitionAST,
+            LineColumn aEditStart, LineColumn aEditEnd)
+    {
+        final LineColumn start =
+                CommentedPackageVisibilityCheck.getStartSearchingPosition(
+                        aDefinitionAST);
+        final LineColumn end =
+                CommentedPackageVisibilityCheck.getEndSearchingPosition(
+                        aDefinitionAST);
+
+        return (compare(start, aEditEnd) <= 0)
+                && (compare(aEditStart, end) <= 0);
+    }
+
+    /**
+     * Compare positions.
+     *
+     * @param aFirst First position.
+     * @param aSecond Second position.
+     * @return Negative if the first is before the second, zero if they are
+     *  same, otherwise positive.
+     */
+    private static int compare(LineColumn aFirst, LineColumn aSecond)
+    {
+        return (aFirst.getLine() == aSecond.getLine())
+                ? aFirst.getColumn() - aSecond.getColumn()
+                : aFirst.getLine() - aSecond.getLine();
+    }
+
+    /**
+     * Whether the line is in the lines.
+     *
+     * @param aLineNo Line.
+     * @param aFirstLineNo First line.
+     * @param aLastLineNo Last line.
+     * @return True if the line is in the lines, otherwise false.
+     */
+    private static boolean isInLines(int aLineNo, int aFirstLineNo,
+            int aLastLineNo)
+    {
+        return (aFirstLineNo <= aLineNo) && (aLineNo <= aLastLineNo);
+    }
+
+    /**
+     * Get offsets of the heads of lines.
+     *
+     * @param aText Text.
+     * @return Offsets of the heads of lines. The last element is the length
+     *  of the text.
+     */
+    private static int[] getLineStartOffsets(String aText)
+    {
+        final List<Integer> offsets = new ArrayList<Integer>();
+        offsets.add(0);
+        for (int i = 0; i < aText.length(); i++) {
+            final char c = aText.charAt(i);
+            if ((c == '\r') && (i + 1 < aText.length())
+                    && (aText.charAt(i + 1) == '\n'))
+            {
+                continue;
+            }
+            if ((c == '\r') || (c == '\n')) {
+                offsets.add(i + 1);
+            }
+        }
+        offsets.add(aText.length());
+
+        final int[] result = new int[offsets.size()];
+        for (int i = 0; i < result.length; i++) {
+            result[i] = offsets.get(i);
+        }
+
+        return result;
+    }
+
+    /**
+     * Split text into lines without line terminators.
+     *
+     * @param aText Text.
+     * @param aLineStartOffsets Offsets of the heads of lines.
+     * @return Lines.
+     */
+    private static String[] toLines(String aText, int[] aLineStartOffsets)
+    {
+        final String[] lines = new String[aLineStartOffsets.length - 1];
+        for (int i = 0; i < lines.length; i++) {
+            int end = aLineStartOffsets[i + 1];
+            while ((end > aLineStartOffsets[i])
+                    && ((aText.charAt(end - 1) == '\n')
+                            || (aText.charAt(end - 1) == '\r')))
+            {
+                end--;
+            }
+            lines[i] = aText.substring(aLineStartOffsets[i], end);
+        }
+
+        return lines;
+    }
+
+    /**
+     * Create contents of file.
+     *
+     * @param aFileName Name of file.
+     * @param aText Text of file.
+     * @param aLineStartOffsets Offsets of the heads of lines.
+     * @return Contents of file.
+     */
+    private static FileContents createContents(String aFileName,
+            String aText, int[] aLineStartOffsets)
+    {
+        return new FileContents(FileText.fromLines(new File(aFileName),
+                Arrays.asList(toLines(aText, aLineStartOffsets))));
+    }
+
+    /**
+     * Parse the file.
+     *
+     * @param aContents Contents of file.
+     * @return Root AST.
+     * @throws CheckstyleException If the file cannot be parsed.
+     */
+    private static DetailAST parse(FileContents aContents)
+        throws CheckstyleException
+    {
+        try {
+            return TreeWalker.parse(aContents);
+        }
+        catch (final RecognitionException e) {
+            throw new CheckstyleException(
+                    "unable to parse " + aContents.getFilename(), e);
+        }
+        catch (final TokenStreamException e) {
+            throw new CheckstyleException(
+                    "unable to parse " + aContents.getFilename(), e);
+        }
+    }
+}
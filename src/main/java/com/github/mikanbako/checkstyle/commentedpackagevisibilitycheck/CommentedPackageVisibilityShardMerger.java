@@ -0,0 +1,177 @@
+/* Commented package visibility check (Checkstyle plugin)
+    Copyright (C) 2012  Keita Kita
+
+    This library is free software; you can redistribute it and/or
+    modify it under the terms of the GNU Lesser General Public
+    License as published by the Free Software Foundation; either
+    version 2.1 of the License, or (at your option) any later version.
+
+    This library is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+    Lesser General Public License for more details.
+
+    You should have received a copy of the GNU Lesser General Public
+    License along with this library; if not, write to the Free Software
+    Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+package com.github.mikanbako.checkstyle.commentedpackagevisibilitycheck;
+
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.SortedSet;
+
+import com.puppycrawl.tools.checkstyle.DefaultLogger;
+import com.puppycrawl.tools.checkstyle.XMLLogger;
+import com.puppycrawl.tools.checkstyle.api.AuditEvent;
+import com.puppycrawl.tools.checkstyle.api.AuditListener;
+import com.puppycrawl.tools.checkstyle.api.CheckstyleException;
+import com.puppycrawl.tools.checkstyle.api.LocalizedMessage;
+import com.puppycrawl.tools.checkstyle.api.SeverityLevel;
+
+/**
+ * <p>Command line tool that merges results of all shards into one report.
+ * </p>
+ *
+ * <p>The report is written by the standard loggers of Checkstyle in order
+ * of file name and position. The exit status is 1 if there are violations
+ * at error severity or exceptions, otherwise 0.</p>
+ *
+ * <p>Usage :</p>
+ *
+ * <pre>
+ *   java CommentedPackageVisibilityShardMerger [-f plain|xml] [-o output]
+ *       result...
+ * </pre>
+ *
+ * @author Keita Kita
+ */
+public final class CommentedPackageVisibilityShardMerger
+{
+    /**
+     * Constructor.
+     */
+    private CommentedPackageVisibilityShardMerger()
+    {
+        // no operation.
+    }
+
+    /**
+     * Report the result to the listener.
+     *
+     * @param aResult Result to report.
+     * @param aListener Listener that writes the report.
+     * @return Count of violations at error severity and exceptions.
+     */
+    /* package */ static int report(ShardResult aResult,
+            AuditListener aListener)
+    {
+        final Object source = new Object();
+        int errorCount = 0;
+
+        aListener.auditStarted(new AuditEvent(source));
+        for (Map.Entry<String, SortedSet<LocalizedMessage>> entry
+                : aResult.getViolations().entrySet())
+        {
+            final String fileName = entry.getKey();
+
+            aListener.fileStarted(new AuditEvent(source, fileName));
+            for (LocalizedMessage violation : entry.getValue()) {
+                aListener.addError(
+                        new AuditEvent(source, fileName, violation));
+                // Like Checkstyle, only violations at error severity
+                // are counted.
+                if (violation.getSeverityLevel() == SeverityLevel.ERROR) {
+                    errorCount++;
+                }
+            }
+            aListener.fileFinished(new AuditEvent(source, fileName));
+        }
+        for (Map.Entry<String, String> entry
+                : aResult.getExceptions().entrySet())
+        {
+            final CheckstyleException exception =
+                    new CheckstyleException(entry.getValue());
+            exception.setStackTrace(new StackTraceElement[0]);
+
+            aListener.addException(
+                    new AuditEvent(source, entry.getKey()), exception);
+            errorCount++;
+        }
+        aListener.auditFinished(new AuditEvent(source));
+
+        return errorCount;
+    }
+
+    /**
+     * Print usage and exit.
+     */
+    private static void exitWithUsage()
+    {
+        System.err.println("Usage : java "
+                + CommentedPackageVisibilityShardMerger.class.getName()
+                + " [-f plain|xml] [-o output] result...");
+        System.exit(1);
+    }
+
+    /**
+     * Main.
+     *
+     * @param aArgs Command line arguments.
+     * @throws IOException If I/O error occurs or results are invalid.
+     */
+    public static void main(String[] aArgs) throws IOException
+    {
+        String format = "plain";
+        String outputFile = null;
+        final List<ShardResult> results = new ArrayList<ShardResult>();
+
+        for (int i = 0; i < aArgs.length; i++) {
+            final boolean hasValue = i + 1 < aArgs.length;
+
+            if ("-f".equals(aArgs[i]) && hasValue) {
+                format = aArgs[++i];
+            }
+            else if ("-o".equals(aArgs[i]) && hasValue) {
+                outputFile = aArgs[++i];
+            }
+            else if (aArgs[i].startsWith("-")) {
+                exitWithUsage();
+            }
+            else {
+                final Reader reader = new InputStreamReader(
+                        new FileInputStream(aArgs[i]), "UTF-8");
+                try {
+                    results.add(ShardResult.read(reader));
+                }
+                finally {
+                    reader.close();
+                }
+            }
+        }
+
+        if (!"plain".equals(format) && !"xml".equals(format)) {
+            exitWithUsage();
+        }
+
+        final ShardResult result = ShardResult.merge(results);
+
+        final OutputStream out = (outputFile == null)
+                ? System.out
+                : new FileOutputStream(outputFile);
+        final boolean closeOut = outputFile != null;
+        final AuditListener listener = "xml".equals(format)
+                ? new XMLLogger(out, closeOut)
+                : new DefaultLogger(out, closeOut);
+
+        final int errorCount = report(result, listener);
+        System.exit((errorCount > 0) ? 1 : 0);
+    }
+}
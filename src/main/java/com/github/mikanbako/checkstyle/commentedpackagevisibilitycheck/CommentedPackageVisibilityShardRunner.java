@@ -0,0 +1,215 @@
+/* Commented package visibility check (Checkstyle plugin)
+    Copyright (C) 2012  Keita Kita
+
+    This library is free software; you can redistribute it and/or
+    modify it under the terms of the GNU Lesser General Public
+    License as published by the Free Software Foundation; either
+    version 2.1 of the License, or (at your option) any later version.
+
+    This library is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+    Lesser General Public License for more details.
+
+    You should have received a copy of the GNU Lesser General Public
+    License along with this library; if not, write to the Free Software
+    Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+package com.github.mikanbako.checkstyle.commentedpackagevisibilitycheck;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.SortedSet;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import com.puppycrawl.tools.checkstyle.Checker;
+import com.puppycrawl.tools.checkstyle.api.CheckstyleException;
+import com.puppycrawl.tools.checkstyle.api.LocalizedMessage;
+
+/**
+ * <p>Command line tool that audits one shard of Java files.</p>
+ *
+ * <p>Files are partitioned by {@link ShardPartitioner}, and the result is
+ * written as {@link ShardResult}. Results of all shards are merged by
+ * {@link CommentedPackageVisibilityShardMerger}.</p>
+ *
+ * <p>Usage :</p>
+ *
+ * <pre>
+ *   java CommentedPackageVisibilityShardRunner --shard i/N -o result
+ *       [-c config.xml] [-b basedir] path...
+ * </pre>
+ *
+ * @author Keita Kita
+ */
+public final class CommentedPackageVisibilityShardRunner
+{
+    /**
+     * Pattern of shard argument.
+     */
+    private static final Pattern SHARD_PATTERN =
+            Pattern.compile("(\\d+)/(\\d+)");
+
+    /**
+     * Extension of Java file.
+     */
+    private static final String JAVA_FILE_EXTENSION = ".java";
+
+    /**
+     * Constructor.
+     */
+    private CommentedPackageVisibilityShardRunner()
+    {
+        // no operation.
+    }
+
+    /**
+     * Collect Java files.
+     *
+     * @param aFile File or directory.
+     * @param aJavaFiles Java files are added to it.
+     */
+    private static void collectJavaFiles(File aFile, List<File> aJavaFiles)
+    {
+        if (aFile.isDirectory()) {
+            final File[] children = aFile.listFiles();
+            if (children == null) {
+                return;
+            }
+
+            Arrays.sort(children);
+            for (File child : children) {
+                collectJavaFiles(child, aJavaFiles);
+            }
+        }
+        else if (aFile.isFile()
+                && aFile.getName().endsWith(JAVA_FILE_EXTENSION))
+        {
+            aJavaFiles.add(aFile.getAbsoluteFile());
+        }
+    }
+
+    /**
+     * Audit files of the shard.
+     *
+     * @param aChecker Checker to audit files.
+     * @param aFiles Files of the shard.
+     * @param aIndex Index of the shard.
+     * @param aCount Count of shards.
+     * @return Result of the shard.
+     */
+    /* package */ static ShardResult audit(Checker aChecker,
+            List<File> aFiles, int aIndex, int aCount)
+    {
+        final ViolationCollector collector = new ViolationCollector();
+        aChecker.addListener(collector);
+        aChecker.process(aFiles);
+        aChecker.removeListener(collector);
+
+        // File names are separated by '/' to merge results of any platform.
+        final ShardResult result = new ShardResult(aIndex, aCount);
+        for (Map.Entry<String, SortedSet<LocalizedMessage>> entry
+                : collector.getViolations().entrySet())
+        {
+            result.addViolations(
+                    entry.getKey().replace(File.separatorChar, '/'),
+                    entry.getValue());
+        }
+        for (Map.Entry<String, Throwable> entry
+                : collector.getExceptions().entrySet())
+        {
+            result.addException(
+                    entry.getKey().replace(File.separatorChar, '/'),
+                    entry.getValue().toString());
+        }
+
+        return result;
+    }
+
+    /**
+     * Print usage and exit.
+     */
+    private static void exitWithUsage()
+    {
+        System.err.println("Usage : java "
+                + CommentedPackageVisibilityShardRunner.class.getName()
+                + " --shard i/N -o result [-c config.xml] [-b basedir]"
+                + " path...");
+        System.exit(1);
+    }
+
+    /**
+     * Main.
+     *
+     * @param aArgs Command line arguments.
+     * @throws CheckstyleException If the checker cannot be configured.
+     * @throws IOException If I/O error occurs.
+     */
+    public static void main(String[] aArgs)
+        throws CheckstyleException, IOException
+    {
+        Matcher shardMatcher = null;
+        String outputFile = null;
+        String configurationFile = null;
+        File baseDirectory = new File(".").getAbsoluteFile();
+        final List<File> javaFiles = new ArrayList<File>();
+
+        for (int i = 0; i < aArgs.length; i++) {
+            final boolean hasValue = i + 1 < aArgs.length;
+
+            if ("--shard".equals(aArgs[i]) && hasValue) {
+                shardMatcher = SHARD_PATTERN.matcher(aArgs[++i]);
+            }
+            else if ("-o".equals(aArgs[i]) && hasValue) {
+                outputFile = aArgs[++i];
+            }
+            else if ("-c".equals(aArgs[i]) && hasValue) {
+                configurationFile = aArgs[++i];
+            }
+            else if ("-b".equals(aArgs[i]) && hasValue) {
+                baseDirectory = new File(aArgs[++i]).getAbsoluteFile();
+            }
+            else if (aArgs[i].startsWith("-")) {
+                exitWithUsage();
+            }
+            else {
+                collectJavaFiles(new File(aArgs[i]), javaFiles);
+            }
+        }
+
+        if (shardMatcher == null || !shardMatcher.matches()
+                || outputFile == null)
+        {
+            exitWithUsage();
+            return;
+        }
+
+        final int index = Integer.parseInt(shardMatcher.group(1));
+        final int count = Integer.parseInt(shardMatcher.group(2));
+        final List<File> shardFiles =
+                ShardPartitioner.select(javaFiles, baseDirectory, index, count);
+
+        final Checker checker = CheckerFactory.create(
+                CheckerFactory.loadConfiguration(configurationFile));
+        checker.setBasedir(baseDirectory.getPath());
+        final ShardResult result = audit(checker, shardFiles, index, count);
+        checker.destroy();
+
+        final Writer writer = new OutputStreamWriter(
+                new FileOutputStream(outputFile), "UTF-8");
+        try {
+            result.write(writer);
+        }
+        finally {
+            writer.close();
+        }
+    }
+}
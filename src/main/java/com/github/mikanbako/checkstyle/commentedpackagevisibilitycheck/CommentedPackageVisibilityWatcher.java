@@ -0,0 +1,304 @@
+/* Commented package visibility check (Checkstyle plugin)
+    Copyright (C) 2012  Keita Kita
+
+    This library is free software; you can redistribute it and/or
+    modify it under the terms of the GNU Lesser General Public
+    License as published by the Free Software Foundation; either
+    version 2.1 of the License, or (at your option) any later version.
+
+    This library is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+    Lesser General Public License for more details.
+
+    You should have received a copy of the GNU Lesser General Public
+    License along with this library; if not, write to the Free Software
+    Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+package com.github.mikanbako.checkstyle.commentedpackagevisibilitycheck;
+
+import static java.nio.file.StandardWatchEventKinds.ENTRY_CREATE;
+import static java.nio.file.StandardWatchEventKinds.ENTRY_DELETE;
+import static java.nio.file.StandardWatchEventKinds.ENTRY_MODIFY;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.FileSystems;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import com.puppycrawl.tools.checkstyle.api.CheckstyleException;
+import com.puppycrawl.tools.checkstyle.api.LocalizedMessage;
+
+/**
+ * <p>Command line tool that watches directories and audits Java files
+ * whenever they are changed.</p>
+ *
+ * <p>Only changed files are audited again, and only violations that
+ * appeared or disappeared are printed. For example :</p>
+ *
+ * <pre>
+ *   + /path/to/Foo.java:3: 'Foo' should be commented for package visibility.
+ *   - /path/to/Bar.java:5: Is visibility of 'bar' package?
+ * </pre>
+ *
+ * <p>Usage :</p>
+ *
+ * <pre>
+ *   java CommentedPackageVisibilityWatcher [-c config.xml]
+ *       [-d debounceMillis] directory...
+ * </pre>
+ *
+ * @author Keita Kita
+ */
+public final class CommentedPackageVisibilityWatcher
+{
+    /**
+     * Default time to wait for following changes in milliseconds.
+     */
+    private static final long DEFAULT_DEBOUNCE_MILLIS = 300;
+
+    /**
+     * Service to watch directories.
+     */
+    private final WatchService mWatchService;
+
+    /**
+     * Watched directories of each key.
+     */
+    private final Map<WatchKey, Path> mDirectories =
+            new HashMap<WatchKey, Path>();
+
+    /**
+     * Auditor of changed files.
+     */
+    private final IncrementalAuditor mAuditor;
+
+    /**
+     * Time to wait for following changes in milliseconds.
+     */
+    private final long mDebounceMillis;
+
+    /**
+     * Stream to print differences of violations.
+     */
+    private final PrintStream mOut;
+
+    /**
+     * Constructor.
+     *
+     * @param aAuditor Auditor of changed files.
+     * @param aDebounceMillis Time to wait for following changes
+     *  in milliseconds.
+     * @param aOut Stream to print differences of violations.
+     * @throws IOException If the watch service cannot be created.
+     */
+    private CommentedPackageVisibilityWatcher(IncrementalAuditor aAuditor,
+            long aDebounceMillis, PrintStream aOut) throws IOException
+    {
+        mWatchService = FileSystems.getDefault().newWatchService();
+        mAuditor = aAuditor;
+        mDebounceMillis = aDebounceMillis;
+        mOut = aOut;
+    }
+
+    /**
+     * Register the directory and its sub directories to the watch service.
+     *
+     * @param aDirectory Directory to register.
+     * @param aJavaFiles Java files in the directories are added to it.
+     * @throws IOException If I/O error occurs.
+     */
+    private void register(Path aDirectory, final Set<File> aJavaFiles)
+        throws IOException
+    {
+        Files.walkFileTree(aDirectory, new SimpleFileVisitor<Path>() {
+            @Override
+            public FileVisitResult preVisitDirectory(Path aDir,
+                    BasicFileAttributes aAttrs) throws IOException
+            {
+                final WatchKey key = aDir.register(mWatchService,
+                        ENTRY_CREATE, ENTRY_MODIFY, ENTRY_DELETE);
+                mDirectories.put(key, aDir);
+
+                return FileVisitResult.CONTINUE;
+            }
+
+            @Override
+            public FileVisitResult visitFile(Path aFile,
+                    BasicFileAttributes aAttrs)
+            {
+                if (aAttrs.isRegularFile() && WatchBatch.isJavaFile(aFile)) {
+                    aJavaFiles.add(aFile.toFile().getAbsoluteFile());
+                }
+
+                return FileVisitResult.CONTINUE;
+            }
+        });
+    }
+
+    /**
+     * Print differences of violations.
+     *
+     * @param aDeltas Differences of violations.
+     */
+    private void print(List<ViolationDelta> aDeltas)
+    {
+        for (ViolationDelta delta : aDeltas) {
+            for (LocalizedMessage message : delta.getRemoved()) {
+                print('-', delta.getFileName(), message);
+            }
+            for (LocalizedMessage message : delta.getAdded()) {
+                print('+', delta.getFileName(), message);
+            }
+        }
+
+        mOut.flush();
+    }
+
+    /**
+     * Print exceptions that occurred in the latest audit.
+     */
+    private void printExceptions()
+    {
+        for (Map.Entry<String, Throwable> entry
+                : mAuditor.getExceptions().entrySet())
+        {
+            mOut.printf("! %s: %s%n", entry.getKey(), entry.getValue());
+        }
+
+        mOut.flush();
+    }
+
+    /**
+     * Print a violation.
+     *
+     * @param aMark Mark representing whether the violation appeared
+     *  or disappeared.
+     * @param aFileName Name of file.
+     * @param aMessage Violation.
+     */
+    private void print(char aMark, String aFileName, LocalizedMessage aMessage)
+    {
+        if (aMessage.getColumnNo() > 0) {
+            mOut.printf("%c %s:%d:%d: %s%n", aMark, aFileName,
+                    aMessage.getLineNo(), aMessage.getColumnNo(),
+                    aMessage.getMessage());
+        }
+        else {
+            mOut.printf("%c %s:%d: %s%n", aMark, aFileName,
+                    aMessage.getLineNo(), aMessage.getMessage());
+        }
+    }
+
+    /**
+     * Watch directories until the thread is interrupted.
+     *
+     * @param aRoots Directories to watch.
+     * @throws IOException If I/O error occurs.
+     * @throws InterruptedException If the thread is interrupted.
+     */
+    private void watch(List<Path> aRoots)
+        throws IOException, InterruptedException
+    {
+        final Set<File> initialFiles = new LinkedHashSet<File>();
+        for (Path root : aRoots) {
+            register(root, initialFiles);
+        }
+        print(mAuditor.audit(initialFiles));
+        printExceptions();
+
+        while (true) {
+            final WatchBatch batch = WatchBatch.collect(
+                    mWatchService, mDirectories, mDebounceMillis);
+
+            // Files in created directories are not notified.
+            final Set<File> createdFiles = new LinkedHashSet<File>();
+            for (Path directory : batch.getCreatedDirectories()) {
+                if (Files.isDirectory(directory)) {
+                    register(directory, createdFiles);
+                }
+            }
+            for (File file : createdFiles) {
+                batch.addChanged(file);
+            }
+
+            // Some events were lost, so all files are scanned again.
+            final Set<File> existingFiles = new LinkedHashSet<File>();
+            if (batch.isOverflowed()) {
+                for (Path root : aRoots) {
+                    register(root, existingFiles);
+                }
+            }
+
+            print(batch.apply(mAuditor, existingFiles));
+            printExceptions();
+        }
+    }
+
+    /**
+     * Print usage and exit.
+     */
+    private static void exitWithUsage()
+    {
+        System.err.println("Usage : java "
+                + CommentedPackageVisibilityWatcher.class.getName()
+                + " [-c config.xml] [-d debounceMillis] directory...");
+        System.exit(1);
+    }
+
+    /**
+     * Main.
+     *
+     * @param aArgs Command line arguments.
+     * @throws CheckstyleException If the checker cannot be configured.
+     * @throws IOException If I/O error occurs.
+     * @throws InterruptedException If the thread is interrupted.
+     */
+    public static void main(String[] aArgs)
+        throws CheckstyleException, IOException, InterruptedException
+    {
+        String configurationFile = null;
+        long debounceMillis = DEFAULT_DEBOUNCE_MILLIS;
+        final List<Path> roots = new ArrayList<Path>();
+
+        for (int i = 0; i < aArgs.length; i++) {
+            if ("-c".equals(aArgs[i]) && (i + 1 < aArgs.length)) {
+                configurationFile = aArgs[++i];
+            }
+            else if ("-d".equals(aArgs[i]) && (i + 1 < aArgs.length)) {
+                debounceMillis = Long.parseLong(aArgs[++i]);
+            }
+            else if (aArgs[i].startsWith("-")) {
+                exitWithUsage();
+            }
+            else {
+                roots.add(Paths.get(aArgs[i]).toAbsolutePath());
+            }
+        }
+
+        if (roots.isEmpty()) {
+            exitWithUsage();
+        }
+
+        final IncrementalAuditor auditor = new IncrementalAuditor(
+                CheckerFactory.create(
+                        CheckerFactory.loadConfiguration(configurationFile)));
+
+        new CommentedPackageVisibilityWatcher(
+                auditor, debounceMillis, System.out).watch(roots);
+    }
+}
@@ -0,0 +1,256 @@
+/* Commented package visibility check (Checkstyle plugin)
+    Copyright (C) 2012  Keita Kita
+
+    This library is free software; you can redistribute it and/or
+    modify it under the terms of the GNU Lesser General Public
+    License as published by the Free Software Foundation; either
+    version 2.1 of the License, or (at your option) any later version.
+
+    This library is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+    Lesser General Public License for more details.
+
+    You should have received a copy of the GNU Lesser General Public
+    License along with this library; if not, write to the Free Software
+    Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+package com.github.mikanbako.checkstyle.commentedpackagevisibilitycheck;
+
+import java.util.Map;
+import java.util.Objects;
+
+import com.puppycrawl.tools.checkstyle.api.DetailAST;
+import com.puppycrawl.tools.checkstyle.api.LineColumn;
+import com.puppycrawl.tools.checkstyle.api.Scope;
+import com.puppycrawl.tools.checkstyle.api.ScopeUtils;
+import com.puppycrawl.tools.checkstyle.api.TokenTypes;
+
+/**
+ * <p>Everything that the check depends on about a definition, except the
+ * text of its searching range.</p>
+ *
+ * <p>If signatures of a definition before and after an edit are equal and
+ * the edit does not touch its searching range, the violation of the
+ * definition is not changed. Positions are relative to the line of the
+ * definition, because they are moved by edits before the definition.</p>
+ *
+ * @author Keita Kita
+ */
+/* package */ final class DefinitionSignature
+{
+    /**
+     * Token type of the definition.
+     */
+    private final int mType;
+
+    /**
+     * Name of the definition.
+     */
+    private final String mName;
+
+    /**
+     * Line of the start of the searching range relative to the line of
+     * the definition.
+     */
+    private final int mStartLineOffset;
+
+    /**
+     * Column of the start of the searching range.
+     */
+    private final int mStartColumn;
+
+    /**
+     * Line of the end of the searching range relative to the line of
+     * the definition.
+     */
+    private final int mEndLineOffset;
+
+    /**
+     * Column of the end of the searching range.
+     */
+    private final int mEndColumn;
+
+    /**
+     * Whether the definition is a local variable.
+     */
+    private final boolean mLocalVariable;
+
+    /**
+     * Innermost node that encloses the definition. Null if no node
+     * encloses the definition.
+     */
+    private final Enclosing mEnclosing;
+
+    /**
+     * <p>Node that encloses definitions, with its enclosing nodes.</p>
+     *
+     * <p>Kinds and modifiers of the enclosing nodes decide visibility of
+     * the definition.</p>
+     */
+    /* package */ static final class Enclosing
+    {
+        /**
+         * Token type of the node.
+         */
+        private final int mType;
+
+        /**
+         * Scope of modifiers of the node. Null if the node has no modifiers.
+         */
+        private final Scope mScope;
+
+        /**
+         * Node that encloses the node. Null if no node encloses the node.
+         */
+        private final Enclosing mParent;
+
+        /**
+         * Constructor.
+         *
+         * @param aType Token type of the node.
+         * @param aScope Scope of modifiers of the node.
+         * @param aParent Node that encloses the node.
+         */
+        private Enclosing(int aType, Scope aScope, Enclosing aParent)
+        {
+            mType = aType;
+            mScope = aScope;
+            mParent = aParent;
+        }
+
+        @Override
+        public boolean equals(Object aObject)
+        {
+            if (this == aObject) {
+                return true;
+            }
+            if (!(aObject instanceof Enclosing)) {
+                return false;
+            }
+
+            final Enclosing other = (Enclosing) aObject;
+            return (mType == other.mType)
+                    && Objects.equals(mScope, other.mScope)
+                    && Objects.equals(mParent, other.mParent);
+        }
+
+        @Override
+        public int hashCode()
+        {
+            return Objects.hash(mType, mScope, mParent);
+        }
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param aDefinitionAST AST of definition.
+     * @param aEnclosingCache Cache of enclosing nodes shared by
+     *  definitions of a file.
+     */
+    /* package */ DefinitionSignature(DetailAST aDefinitionAST,
+            Map<DetailAST, Enclosing> aEnclosingCache)
+    {
+        final int lineNo = aDefinitionAST.getLineNo();
+        final LineColumn start =
+                CommentedPackageVisibilityCheck.getStartSearchingPosition(
+                        aDefinitionAST);
+        final LineColumn end =
+                CommentedPackageVisibilityCheck.getEndSearchingPosition(
+                        aDefinitionAST);
+
+        mType = aDefinitionAST.getType();
+        mName = aDefinitionAST.findFirstToken(TokenTypes.IDENT).getText();
+        mStartLineOffset = start.getLine() - lineNo;
+        mStartColumn = start.getColumn();
+        mEndLineOffset = end.getLine() - lineNo;
+        mEndColumn = end.getColumn();
+        mLocalVariable = ScopeUtils.isLocalVariableDef(aDefinitionAST);
+        mEnclosing = getEnclosing(aDefinitionAST.getParent(), aEnclosingCache);
+    }
+
+    /**
+     * Get the node that encloses the definition.
+     *
+     * @param aAST Parent of the definition.
+     * @param aEnclosingCache Cache of enclosing nodes.
+     * @return Innermost enclosing node, or null if no node encloses
+     *  the definition.
+     */
+    private static Enclosing getEnclosing(DetailAST aAST,
+            Map<DetailAST, Enclosing> aEnclosingCache)
+    {
+        DetailAST enclosingAST = aAST;
+        while ((enclosingAST != null) && !isEnclosing(enclosingAST)) {
+            enclosingAST = enclosingAST.getParent();
+        }
+        if (enclosingAST == null) {
+            return null;
+        }
+
+        Enclosing enclosing = aEnclosingCache.get(enclosingAST);
+        if (enclosing == null) {
+            final DetailAST modifierAST =
+                    enclosingAST.findFirstToken(TokenTypes.MODIFIERS);
+            enclosing = new Enclosing(enclosingAST.getType(),
+                    (modifierAST == null)
+                        ? null
+                        : ScopeUtils.getScopeFromMods(modifierAST),
+                    getEnclosing(enclosingAST.getParent(), aEnclosingCache));
+            aEnclosingCache.put(enclosingAST, enclosing);
+        }
+
+        return enclosing;
+    }
+
+    /**
+     * Whether the node can enclose definitions.
+     *
+     * @param aAST AST of node.
+     * @return True if the node can enclose definitions, otherwise false.
+     */
+    private static boolean isEnclosing(DetailAST aAST)
+    {
+        switch (aAST.getType()) {
+        case TokenTypes.CLASS_DEF:
+        case TokenTypes.INTERFACE_DEF:
+        case TokenTypes.ENUM_DEF:
+        case TokenTypes.ANNOTATION_DEF:
+        case TokenTypes.LITERAL_NEW:
+        case TokenTypes.ENUM_CONSTANT_DEF:
+        case TokenTypes.SLIST:
+            return true;
+        default:
+            return false;
+        }
+    }
+
+    @Override
+    public boolean equals(Object aObject)
+    {
+        if (this == aObject) {
+            return true;
+        }
+        if (!(aObject instanceof DefinitionSignature)) {
+            return false;
+        }
+
+        final DefinitionSignature other = (DefinitionSignature) aObject;
+        return (mType == other.mType)
+                && mName.equals(other.mName)
+                && (mStartLineOffset == other.mStartLineOffset)
+                && (mStartColumn == other.mStartColumn)
+                && (mEndLineOffset == other.mEndLineOffset)
+                && (mEndColumn == other.mEndColumn)
+                && (mLocalVariable == other.mLocalVariable)
+                && Objects.equals(mEnclosing, other.mEnclosing);
+    }
+
+    @Override
+    public int hashCode()
+    {
+        return Objects.hash(mType, mName, mStartLineOffset, mStartColumn,
+                mEndLineOffset, mEndColumn, mLocalVariable, mEnclosing);
+    }
+}
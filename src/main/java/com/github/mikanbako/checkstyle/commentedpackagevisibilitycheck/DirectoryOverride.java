@@ -0,0 +1,120 @@
+/* Commented package visibility check (Checkstyle plugin)
+    Copyright (C) 2012  Keita Kita
+
+    This library is free software; you can redistribute it and/or
+    modify it under the terms of the GNU Lesser General Public
+    License as published by the Free Software Foundation; either
+    version 2.1 of the License, or (at your option) any later version.
+
+    This library is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+    Lesser General Public License for more details.
+
+    You should have received a copy of the GNU Lesser General Public
+    License along with this library; if not, write to the Free Software
+    Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+package com.github.mikanbako.checkstyle.commentedpackagevisibilitycheck;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * <p>Properties of the check overridden for a directory.</p>
+ *
+ * <p>Overrides are loaded from a properties file. Each key is a directory
+ * relative to the properties file and a property name joined by '.'.
+ * For example :</p>
+ *
+ * <pre>
+ *   module-a.format=/\\* pkg \\*&#x2f;
+ *   module-a/generated.requireLatterWhiteSpace=false
+ * </pre>
+ *
+ * @author Keita Kita
+ */
+/* package */ final class DirectoryOverride
+{
+    /**
+     * Directory.
+     */
+    private final File mDirectory;
+
+    /**
+     * Format and requireLatterWhiteSpace.
+     */
+    private final CommentSettings mSettings;
+
+    /**
+     * Constructor.
+     *
+     * @param aDirectory Directory.
+     * @param aSettings Format and requireLatterWhiteSpace.
+     */
+    private DirectoryOverride(File aDirectory, CommentSettings aSettings)
+    {
+        mDirectory = aDirectory;
+        mSettings = aSettings;
+    }
+
+    /**
+     * Get directory.
+     *
+     * @return Directory.
+     */
+    /* package */ File getDirectory()
+    {
+        return mDirectory;
+    }
+
+    /**
+     * Get format.
+     *
+     * @param aDefault Format used if it is not specified.
+     * @return Format.
+     */
+    /* package */ String getFormat(String aDefault)
+    {
+        return mSettings.getFormat(aDefault);
+    }
+
+    /**
+     * Get whether latter white space is required.
+     *
+     * @param aDefault Value used if it is not specified.
+     * @return True if latter white space is required, otherwise false.
+     */
+    /* package */ boolean isLatterWhiteSpaceRequired(boolean aDefault)
+    {
+        return mSettings.isLatterWhiteSpaceRequired(aDefault);
+    }
+
+    /**
+     * Load overrides.
+     *
+     * @param aFile Properties file.
+     * @return Overrides in order of directory.
+     * @throws IOException If I/O error occurs or the file is invalid.
+     */
+    /* package */ static List<DirectoryOverride> load(File aFile)
+        throws IOException
+    {
+        final File baseDirectory = aFile.getAbsoluteFile().getParentFile();
+        final List<DirectoryOverride> overrides =
+                new ArrayList<DirectoryOverride>();
+        for (Map.Entry<String, CommentSettings> entry
+                : CommentSettings.load(aFile).entrySet())
+        {
+            overrides.add(new DirectoryOverride(
+                    new File(baseDirectory, entry.getKey()),
+                    entry.getValue()));
+        }
+
+        return Collections.unmodifiableList(overrides);
+    }
+}
@@ -0,0 +1,180 @@
+/* Commented package visibility check (Checkstyle plugin)
+    Copyright (C) 2012  Keita Kita
+
+    This library is free software; you can redistribute it and/or
+    modify it under the terms of the GNU Lesser General Public
+    License as published by the Free Software Foundation; either
+    version 2.1 of the License, or (at your option) any later version.
+
+    This library is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+    Lesser General Public License for more details.
+
+    You should have received a copy of the GNU Lesser General Public
+    License along with this library; if not, write to the Free Software
+    Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+package com.github.mikanbako.checkstyle.commentedpackagevisibilitycheck;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.SortedSet;
+import java.util.TreeSet;
+
+import com.puppycrawl.tools.checkstyle.Checker;
+import com.puppycrawl.tools.checkstyle.api.LocalizedMessage;
+
+/**
+ * <p>Auditor that keeps violations of each file in memory and reports
+ * only differences.</p>
+ *
+ * <p>Only given files are audited again, so the cost of an audit is
+ * proportional to the number of changed files.</p>
+ *
+ * @author Keita Kita
+ */
+/* package */ final class IncrementalAuditor
+{
+    /**
+     * Empty violations.
+     */
+    private static final SortedSet<LocalizedMessage> NO_VIOLATIONS =
+            Collections.unmodifiableSortedSet(
+                    new TreeSet<LocalizedMessage>());
+
+    /**
+     * Checker to audit files.
+     */
+    private final Checker mChecker;
+
+    /**
+     * Collector of violations of the checker.
+     */
+    private final ViolationCollector mCollector = new ViolationCollector();
+
+    /**
+     * Violations of each file of the latest audit.
+     */
+    private final Map<String, SortedSet<LocalizedMessage>> mResults =
+            new HashMap<String, SortedSet<LocalizedMessage>>();
+
+    /**
+     * Constructor.
+     *
+     * @param aChecker Checker to audit files. The auditor adds a listener
+     *  to the checker.
+     */
+    /* package */ IncrementalAuditor(Checker aChecker)
+    {
+        mChecker = aChecker;
+        mChecker.addListener(mCollector);
+    }
+
+    /**
+     * Audit files and get differences from the previous audit.
+     *
+     * @param aFiles Files that were created or modified.
+     * @return Differences of files whose violations changed.
+     */
+    /* package */ List<ViolationDelta> audit(Collection<File> aFiles)
+    {
+        mCollector.clear();
+        mChecker.process(new ArrayList<File>(aFiles));
+
+        final List<ViolationDelta> deltas = new ArrayList<ViolationDelta>();
+        for (Map.Entry<String, SortedSet<LocalizedMessage>> entry
+                : mCollector.getViolations().entrySet())
+        {
+            final String fileName = entry.getKey();
+            final SortedSet<LocalizedMessage> previous =
+                    mResults.put(fileName, entry.getValue());
+
+            addDelta(deltas, fileName,
+                    (previous == null) ? NO_VIOLATIONS : previous,
+                    entry.getValue());
+        }
+
+        return deltas;
+    }
+
+    /**
+     * Forget files and get differences from the previous audit.
+     *
+     * @param aFiles Files or directories that were deleted. All files
+     *  in deleted directories are forgotten.
+     * @return Differences of files whose violations changed.
+     */
+    /* package */ List<ViolationDelta> remove(Collection<File> aFiles)
+    {
+        final List<ViolationDelta> deltas = new ArrayList<ViolationDelta>();
+        for (File file : aFiles) {
+            final String fileName = file.getAbsolutePath();
+            final String directoryPrefix = fileName + File.separator;
+
+            final Iterator<Map.Entry<String, SortedSet<LocalizedMessage>>>
+                iterator = mResults.entrySet().iterator();
+            while (iterator.hasNext()) {
+                final Map.Entry<String, SortedSet<LocalizedMessage>> entry =
+                        iterator.next();
+                if (entry.getKey().equals(fileName)
+                        || entry.getKey().startsWith(directoryPrefix))
+                {
+                    iterator.remove();
+                    addDelta(deltas, entry.getKey(), entry.getValue(),
+                            NO_VIOLATIONS);
+                }
+            }
+        }
+
+        return deltas;
+    }
+
+    /**
+     * Get names of files whose violations are kept.
+     *
+     * @return Names of audited files that are not removed.
+     */
+    /* package */ Set<String> getFileNames()
+    {
+        return Collections.unmodifiableSet(
+                new HashSet<String>(mResults.keySet()));
+    }
+
+    /**
+     * Get exceptions that occurred in the latest audit.
+     *
+     * @return Exceptions of each file.
+     */
+    /* package */ Map<String, Throwable> getExceptions()
+    {
+        return mCollector.getExceptions();
+    }
+
+    /**
+     * Add difference if violations changed.
+     *
+     * @param aDeltas Differences to add to.
+     * @param aFileName Name of file.
+     * @param aPrevious Previous violations.
+     * @param aCurrent Current violations.
+     */
+    private static void addDelta(List<ViolationDelta> aDeltas,
+            String aFileName, SortedSet<LocalizedMessage> aPrevious,
+            SortedSet<LocalizedMessage> aCurrent)
+    {
+        final ViolationDelta delta =
+                new ViolationDelta(aFileName, aPrevious, aCurrent);
+        if (!delta.isEmpty()) {
+            aDeltas.add(delta);
+        }
+    }
+}
@@ -0,0 +1,150 @@
+/* Commented package visibility check (Checkstyle plugin)
+    Copyright (C) 2012  Keita Kita
+
+    This library is free software; you can redistribute it and/or
+    modify it under the terms of the GNU Lesser General Public
+    License as published by the Free Software Foundation; either
+    version 2.1 of the License, or (at your option) any later version.
+
+    This library is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+    Lesser General Public License for more details.
+
+    You should have received a copy of the GNU Lesser General Public
+    License along with this library; if not, write to the Free Software
+    Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+package com.github.mikanbako.checkstyle.commentedpackagevisibilitycheck;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.SortedSet;
+
+import com.puppycrawl.tools.checkstyle.api.LineColumn;
+import com.puppycrawl.tools.checkstyle.api.LocalizedMessage;
+
+/**
+ * <p>Result of {@link CommentedPackageVisibilityIncrementalChecker}.</p>
+ *
+ * <p>The result keeps what is needed to check the next edit of the file
+ * incrementally.</p>
+ *
+ * @author Keita Kita
+ */
+public final class IncrementalCheckResult
+{
+    /**
+     * Name of file.
+     */
+    private final String mFileName;
+
+    /**
+     * Offsets of the heads of lines.
+     */
+    private final int[] mLineStartOffsets;
+
+    /**
+     * Signatures of definitions of each line.
+     */
+    private final Map<Integer, List<DefinitionSignature>> mLineSignatures;
+
+    /**
+     * Violations.
+     */
+    private final SortedSet<LocalizedMessage> mViolations;
+
+    /**
+     * Constructor.
+     *
+     * @param aFileName Name of file.
+     * @param aLineStartOffsets Offsets of the heads of lines.
+     * @param aLineSignatures Signatures of definitions of each line.
+     * @param aViolations Violations.
+     */
+    /* package */ IncrementalCheckResult(String aFileName,
+            int[] aLineStartOffsets,
+            Map<Integer, List<DefinitionSignature>> aLineSignatures,
+            SortedSet<LocalizedMessage> aViolations)
+    {
+        mFileName = aFileName;
+        mLineStartOffsets = aLineStartOffsets;
+        mLineSignatures = aLineSignatures;
+        mViolations = Collections.unmodifiableSortedSet(aViolations);
+    }
+
+    /**
+     * Get name of file.
+     *
+     * @return Name of file.
+     */
+    public String getFileName()
+    {
+        return mFileName;
+    }
+
+    /**
+     * Get violations.
+     *
+     * @return Violations in order of position.
+     */
+    public SortedSet<LocalizedMessage> getViolations()
+    {
+        return mViolations;
+    }
+
+    /**
+     * Get length of the text.
+     *
+     * @return Length of the text.
+     */
+    /* package */ int getTextLength()
+    {
+        return mLineStartOffsets[mLineStartOffsets.length - 1];
+    }
+
+    /**
+     * Get signatures of definitions of each line.
+     *
+     * @return Signatures of definitions of each line.
+     */
+    /* package */ Map<Integer, List<DefinitionSignature>> getLineSignatures()
+    {
+        return mLineSignatures;
+    }
+
+    /**
+     * Convert offsets of the heads of lines to position.
+     *
+     * @param aLineStartOffsets Offsets of the heads of lines. The last
+     *  element is the length of the text.
+     * @param aOffset Offset in the text.
+     * @return Position of the offset. The line is 1-based and the column
+     *  is 0-based.
+     */
+    /* package */ static LineColumn toLineColumn(int[] aLineStartOffsets,
+            int aOffset)
+    {
+        // Exclude the last element that is not a head of line.
+        int index = Arrays.binarySearch(
+                aLineStartOffsets, 0, aLineStartOffsets.length - 1, aOffset);
+        if (index < 0) {
+            index = -index - 2;
+        }
+
+        return new LineColumn(index + 1, aOffset - aLineStartOffsets[index]);
+    }
+
+    /**
+     * Convert offset in the text to position.
+     *
+     * @param aOffset Offset in the text.
+     * @return Position of the offset.
+     */
+    /* package */ LineColumn toLineColumn(int aOffset)
+    {
+        return toLineColumn(mLineStartOffsets, aOffset);
+    }
+}
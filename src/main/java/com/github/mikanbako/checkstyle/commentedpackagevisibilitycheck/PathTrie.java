@@ -0,0 +1,153 @@
+/* Commented package visibility check (Checkstyle plugin)
+    Copyright (C) 2012  Keita Kita
+
+    This library is free software; you can redistribute it and/or
+    modify it under the terms of the GNU Lesser General Public
+    License as published by the Free Software Foundation; either
+    version 2.1 of the License, or (at your option) any later version.
+
+    This library is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+    Lesser General Public License for more details.
+
+    You should have received a copy of the GNU Lesser General Public
+    License along with this library; if not, write to the Free Software
+    Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+package com.github.mikanbako.checkstyle.commentedpackagevisibilitycheck;
+
+import java.io.File;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * <p>Trie that maps directories to values.</p>
+ *
+ * <p>Paths are split into names of directories, so a file is looked up by
+ * one traversal from the root regardless of the count of directories in
+ * the trie.</p>
+ *
+ * @param <V> Type of values.
+ * @author Keita Kita
+ */
+/* package */ final class PathTrie<V>
+{
+    /**
+     * Node of the trie.
+     *
+     * @param <V> Type of values.
+     */
+    private static final class Node<V>
+    {
+        /**
+         * Child nodes of each name.
+         */
+        private final Map<String, Node<V>> mChildren =
+                new HashMap<String, Node<V>>();
+
+        /**
+         * Value of the directory, or null if the directory has no value.
+         */
+        private V mValue;
+    }
+
+    /**
+     * Root node.
+     */
+    private final Node<V> mRoot = new Node<V>();
+
+    /**
+     * Split the path into names.
+     *
+     * The first name is the root of the path.
+     *
+     * @param aPath Path of file or directory.
+     * @return Names in the path.
+     */
+    private static List<String> split(File aPath)
+    {
+        final Path path = aPath.getAbsoluteFile().toPath().normalize();
+        final List<String> names = new ArrayList<String>();
+
+        names.add(String.valueOf(path.getRoot()));
+        for (Path name : path) {
+            names.add(name.toString());
+        }
+
+        return names;
+    }
+
+    /**
+     * Put the value of the directory.
+     *
+     * @param aDirectory Directory.
+     * @param aValue Value of the directory.
+     */
+    /* package */ void put(File aDirectory, V aValue)
+    {
+        Node<V> node = mRoot;
+        for (String name : split(aDirectory)) {
+            Node<V> child = node.mChildren.get(name);
+            if (child == null) {
+                child = new Node<V>();
+                node.mChildren.put(name, child);
+            }
+            node = child;
+        }
+
+        node.mValue = aValue;
+    }
+
+    /**
+     * Get values of directories that contain the path.
+     *
+     * @param aPath Path of file or directory.
+     * @return Values in order from the outermost directory.
+     */
+    /* package */ List<V> getAll(File aPath)
+    {
+        final List<V> values = new ArrayList<V>();
+
+        Node<V> node = mRoot;
+        for (String name : split(aPath)) {
+            node = node.mChildren.get(name);
+            if (node == null) {
+                break;
+            }
+            if (node.mValue != null) {
+                values.add(node.mValue);
+            }
+        }
+
+        return values;
+    }
+
+    /**
+     * Get value of the innermost directory that contains the path.
+     *
+     * @param aPath Path of file or directory.
+     * @return Value of the innermost directory, or null if no directory
+     *  contains the path.
+     */
+    /* package */ V get(File aPath)
+    {
+        V value = null;
+
+        Node<V> node = mRoot;
+        for (String name : split(aPath)) {
+            node = node.mChildren.get(name);
+            if (node == null) {
+                break;
+            }
+            if (node.mValue != null) {
+                value = node.mValue;
+            }
+        }
+
+        return value;
+    }
+}
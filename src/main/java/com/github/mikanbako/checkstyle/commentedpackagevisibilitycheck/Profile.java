@@ -0,0 +1,116 @@
+/* Commented package visibility check (Checkstyle plugin)
+    Copyright (C) 2012  Keita Kita
+
+    This library is free software; you can redistribute it and/or
+    modify it under the terms of the GNU Lesser General Public
+    License as published by the Free Software Foundation; either
+    version 2.1 of the License, or (at your option) any later version.
+
+    This library is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+    Lesser General Public License for more details.
+
+    You should have received a copy of the GNU Lesser General Public
+    License along with this library; if not, write to the Free Software
+    Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+package com.github.mikanbako.checkstyle.commentedpackagevisibilitycheck;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * <p>Named pair of format and requireLatterWhiteSpace that is evaluated
+ * in addition to the properties of the check.</p>
+ *
+ * <p>Profiles are loaded from a properties file. Each key is a name of
+ * profile and a property name joined by '.'. For example :</p>
+ *
+ * <pre>
+ *   current.format=/\\* package \\*&#x2f;
+ *   migrated.format=/\\* package-private \\*&#x2f;
+ *   migrated.requireLatterWhiteSpace=false
+ * </pre>
+ *
+ * @author Keita Kita
+ */
+/* package */ final class Profile
+{
+    /**
+     * Name of profile.
+     */
+    private final String mName;
+
+    /**
+     * Format and requireLatterWhiteSpace.
+     */
+    private final CommentSettings mSettings;
+
+    /**
+     * Constructor.
+     *
+     * @param aName Name of profile.
+     * @param aSettings Format and requireLatterWhiteSpace.
+     */
+    private Profile(String aName, CommentSettings aSettings)
+    {
+        mName = aName;
+        mSettings = aSettings;
+    }
+
+    /**
+     * Get name of profile.
+     *
+     * @return Name of profile.
+     */
+    /* package */ String getName()
+    {
+        return mName;
+    }
+
+    /**
+     * Get format.
+     *
+     * @param aDefault Format used if it is not specified.
+     * @return Format.
+     */
+    /* package */ String getFormat(String aDefault)
+    {
+        return mSettings.getFormat(aDefault);
+    }
+
+    /**
+     * Get whether latter white space is required.
+     *
+     * @param aDefault Value used if it is not specified.
+     * @return True if latter white space is required, otherwise false.
+     */
+    /* package */ boolean isLatterWhiteSpaceRequired(boolean aDefault)
+    {
+        return mSettings.isLatterWhiteSpaceRequired(aDefault);
+    }
+
+    /**
+     * Load profiles.
+     *
+     * @param aFile Properties file.
+     * @return Profiles in order of name.
+     * @throws IOException If I/O error occurs or the file is invalid.
+     */
+    /* package */ static List<Profile> load(File aFile) throws IOException
+    {
+        final List<Profile> profiles = new ArrayList<Profile>();
+        for (Map.Entry<String, CommentSettings> entry
+                : CommentSettings.load(aFile).entrySet())
+        {
+            profiles.add(new Profile(entry.getKey(), entry.getValue()));
+        }
+
+        return Collections.unmodifiableList(profiles);
+    }
+}
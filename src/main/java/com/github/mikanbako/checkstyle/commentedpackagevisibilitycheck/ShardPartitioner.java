@@ -0,0 +1,119 @@
+/* Commented package visibility check (Checkstyle plugin)
+    Copyright (C) 2012  Keita Kita
+
+    This library is free software; you can redistribute it and/or
+    modify it under the terms of the GNU Lesser General Public
+    License as published by the Free Software Foundation; either
+    version 2.1 of the License, or (at your option) any later version.
+
+    This library is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+    Lesser General Public License for more details.
+
+    You should have received a copy of the GNU Lesser General Public
+    License along with this library; if not, write to the Free Software
+    Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+package com.github.mikanbako.checkstyle.commentedpackagevisibilitycheck;
+
+import java.io.File;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.zip.CRC32;
+
+/**
+ * <p>Partitioner that assigns files to shards deterministically.</p>
+ *
+ * <p>Each file is assigned by CRC-32 of its relative path. The assignment
+ * depends only on the relative path, so every shard computes the same
+ * assignment from the same file set regardless of the order of given files
+ * and of contents of files, which may differ between executors by line
+ * terminators or generated sources.</p>
+ *
+ * @author Keita Kita
+ */
+/* package */ final class ShardPartitioner
+{
+    /**
+     * Charset to hash relative paths.
+     */
+    private static final Charset PATH_CHARSET = Charset.forName("UTF-8");
+
+    /**
+     * Constructor.
+     */
+    private ShardPartitioner()
+    {
+        // no operation.
+    }
+
+    /**
+     * Get path relative to the base directory separated by '/'.
+     *
+     * @param aBaseDirectory Base directory.
+     * @param aFile File.
+     * @return Relative path, or absolute path if the file is not
+     *  in the base directory.
+     */
+    /* package */ static String toRelativePath(File aBaseDirectory,
+            File aFile)
+    {
+        final String basePath = aBaseDirectory.getAbsolutePath();
+        String path = aFile.getAbsolutePath();
+
+        if (path.startsWith(basePath + File.separator)) {
+            path = path.substring(basePath.length() + 1);
+        }
+
+        return path.replace(File.separatorChar, '/');
+    }
+
+    /**
+     * Get index of the shard that the file is assigned to.
+     *
+     * @param aPath Relative path separated by '/'.
+     * @param aCount Count of shards.
+     * @return Index of the shard, from 1 to the count of shards.
+     */
+    private static int getShardIndex(String aPath, int aCount)
+    {
+        final CRC32 crc = new CRC32();
+        crc.update(aPath.getBytes(PATH_CHARSET));
+
+        return (int) (crc.getValue() % aCount) + 1;
+    }
+
+    /**
+     * Select files of the shard.
+     *
+     * @param aFiles All files.
+     * @param aBaseDirectory Base directory of relative paths.
+     * @param aIndex Index of the shard, from 1 to the count of shards.
+     * @param aCount Count of shards.
+     * @return Files of the shard in order of relative path.
+     */
+    /* package */ static List<File> select(List<File> aFiles,
+            File aBaseDirectory, int aIndex, int aCount)
+    {
+        if (aCount < 1 || aIndex < 1 || aIndex > aCount) {
+            throw new IllegalArgumentException(String.format(
+                    "Invalid shard %d/%d.", aIndex, aCount));
+        }
+
+        final SortedMap<String, File> selectedFiles =
+                new TreeMap<String, File>();
+        for (File file : aFiles) {
+            final String path = toRelativePath(aBaseDirectory, file);
+            if (getShardIndex(path, aCount) == aIndex) {
+                // The same file given twice is selected once.
+                selectedFiles.put(path, file);
+            }
+        }
+
+        return new ArrayList<File>(selectedFiles.values());
+    }
+}
@@ -0,0 +1,547 @@
+/* Commented package visibility check (Checkstyle plugin)
+    Copyright (C) 2012  Keita Kita
+
+    This library is free software; you can redistribute it and/or
+    modify it under the terms of the GNU Lesser General Public
+    License as published by the Free Software Foundation; either
+    version 2.1 of the License, or (at your option) any later version.
+
+    This library is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+    Lesser General Public License for more details.
+
+    You should have received a copy of the GNU Lesser General Public
+    License along with this library; if not, write to the Free Software
+    Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+package com.github.mikanbako.checkstyle.commentedpackagevisibilitycheck;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.Reader;
+import java.io.Writer;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.SortedSet;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+import com.puppycrawl.tools.checkstyle.api.LocalizedMessage;
+import com.puppycrawl.tools.checkstyle.api.SeverityLevel;
+
+/**
+ * <p>Result of auditing files of a shard.</p>
+ *
+ * <p>The result is written as tab separated text. For example :</p>
+ *
+ * <pre>
+ *   shard  1  4
+ *   file   src/Foo.java
+ *   error  3  0  error  com.example.FooCheck  key  Message of violation.
+ *   exception  src/Bar.java  Description of exception.
+ * </pre>
+ *
+ * @author Keita Kita
+ */
+/* package */ final class ShardResult
+{
+    /**
+     * Header of the result file.
+     */
+    private static final String HEADER =
+            "# commented-package-visibility-check shard result 1";
+
+    /**
+     * Record type of shard.
+     */
+    private static final String RECORD_SHARD = "shard";
+
+    /**
+     * Record type of file.
+     */
+    private static final String RECORD_FILE = "file";
+
+    /**
+     * Record type of violation.
+     */
+    private static final String RECORD_ERROR = "error";
+
+    /**
+     * Record type of exception.
+     */
+    private static final String RECORD_EXCEPTION = "exception";
+
+    /**
+     * Index of record type in every record.
+     */
+    private static final int TYPE_FIELD = 0;
+
+    /**
+     * Index of the shard index in shard record.
+     */
+    private static final int SHARD_INDEX_FIELD = 1;
+
+    /**
+     * Index of the count of shards in shard record.
+     */
+    private static final int SHARD_COUNT_FIELD = 2;
+
+    /**
+     * Count of fields of shard record.
+     */
+    private static final int SHARD_FIELD_COUNT = 3;
+
+    /**
+     * Index of the file name in file record.
+     */
+    private static final int FILE_NAME_FIELD = 1;
+
+    /**
+     * Count of fields of file record.
+     */
+    private static final int FILE_FIELD_COUNT = 2;
+
+    /**
+     * Index of the line number in violation record.
+     */
+    private static final int ERROR_LINE_FIELD = 1;
+
+    /**
+     * Index of the column number in violation record.
+     */
+    private static final int ERROR_COLUMN_FIELD = 2;
+
+    /**
+     * Index of the severity in violation record.
+     */
+    private static final int ERROR_SEVERITY_FIELD = 3;
+
+    /**
+     * Index of the source class in violation record.
+     */
+    private static final int ERROR_SOURCE_FIELD = 4;
+
+    /**
+     * Index of the module ID in violation record.
+     */
+    private static final int ERROR_MODULE_ID_FIELD = 5;
+
+    /**
+     * Index of the message key in violation record.
+     */
+    private static final int ERROR_KEY_FIELD = 6;
+
+    /**
+     * Index of the message in violation record.
+     */
+    private static final int ERROR_MESSAGE_FIELD = 7;
+
+    /**
+     * Count of fields of violation record.
+     */
+    private static final int ERROR_FIELD_COUNT = 8;
+
+    /**
+     * Index of the file name in exception record.
+     */
+    private static final int EXCEPTION_FILE_FIELD = 1;
+
+    /**
+     * Index of the description in exception record.
+     */
+    private static final int EXCEPTION_DESCRIPTION_FIELD = 2;
+
+    /**
+     * Count of fields of exception record.
+     */
+    private static final int EXCEPTION_FIELD_COUNT = 3;
+
+    /**
+     * Index of the shard, from 1 to the count of shards.
+     */
+    private final int mIndex;
+
+    /**
+     * Count of shards.
+     */
+    private final int mCount;
+
+    /**
+     * Violations of each file in order of file name.
+     */
+    private final SortedMap<String, SortedSet<LocalizedMessage>> mViolations =
+            new TreeMap<String, SortedSet<LocalizedMessage>>();
+
+    /**
+     * Descriptions of exceptions of each file in order of file name.
+     */
+    private final SortedMap<String, String> mExceptions =
+            new TreeMap<String, String>();
+
+    /**
+     * Constructor.
+     *
+     * @param aIndex Index of the shard, from 1 to the count of shards.
+     * @param aCount Count of shards.
+     */
+    /* package */ ShardResult(int aIndex, int aCount)
+    {
+        mIndex = aIndex;
+        mCount = aCount;
+    }
+
+    /**
+     * Get index of the shard.
+     *
+     * @return Index of the shard, from 1 to the count of shards.
+     */
+    /* package */ int getIndex()
+    {
+        return mIndex;
+    }
+
+    /**
+     * Get count of shards.
+     *
+     * @return Count of shards.
+     */
+    /* package */ int getCount()
+    {
+        return mCount;
+    }
+
+    /**
+     * Get violations of each file.
+     *
+     * @return Violations of each file in order of file name.
+     */
+    /* package */ SortedMap<String, SortedSet<LocalizedMessage>>
+    getViolations()
+    {
+        return Collections.unmodifiableSortedMap(mViolations);
+    }
+
+    /**
+     * Get descriptions of exceptions of each file.
+     *
+     * @return Descriptions of exceptions in order of file name.
+     */
+    /* package */ SortedMap<String, String> getExceptions()
+    {
+        return Collections.unmodifiableSortedMap(mExceptions);
+    }
+
+    /**
+     * Add violations of the file.
+     *
+     * @param aFileName Name of file.
+     * @param aViolations Violations of the file.
+     */
+    /* package */ void addViolations(String aFileName,
+            Iterable<LocalizedMessage> aViolations)
+    {
+        SortedSet<LocalizedMessage> violations = mViolations.get(aFileName);
+        if (violations == null) {
+            violations = new TreeSet<LocalizedMessage>();
+            mViolations.put(aFileName, violations);
+        }
+
+        for (LocalizedMessage violation : aViolations) {
+            violations.add(violation);
+        }
+    }
+
+    /**
+     * Add exception of the file.
+     *
+     * @param aFileName Name of file.
+     * @param aDescription Description of the exception.
+     */
+    /* package */ void addException(String aFileName, String aDescription)
+    {
+        mExceptions.put(aFileName, aDescription);
+    }
+
+    /**
+     * Add all violations and exceptions of the other result.
+     *
+     * @param aResult Other result.
+     */
+    /* package */ void addAll(ShardResult aResult)
+    {
+        for (Map.Entry<String, SortedSet<LocalizedMessage>> entry
+                : aResult.mViolations.entrySet())
+        {
+            addViolations(entry.getKey(), entry.getValue());
+        }
+        mExceptions.putAll(aResult.mExceptions);
+    }
+
+    /**
+     * Merge results of all shards.
+     *
+     * @param aResults Results of shards.
+     * @return Merged result as the only shard.
+     * @throws IOException If results of some shards are missing
+     *  or duplicated.
+     */
+    /* package */ static ShardResult merge(List<ShardResult> aResults)
+        throws IOException
+    {
+        if (aResults.isEmpty()) {
+            throw new IOException("No shard result.");
+        }
+
+        final int count = aResults.get(0).getCount();
+        final boolean[] merged = new boolean[count + 1];
+        final ShardResult mergedResult = new ShardResult(1, 1);
+
+        for (ShardResult result : aResults) {
+            if (result.getCount() != count || result.getIndex() < 1
+                    || result.getIndex() > count)
+            {
+                throw new IOException(String.format(
+                        "Shard %d/%d does not match count of shards %d.",
+                        result.getIndex(), result.getCount(), count));
+            }
+            if (merged[result.getIndex()]) {
+                throw new IOException(String.format(
+                        "Shard %d/%d is duplicated.",
+                        result.getIndex(), count));
+            }
+
+            merged[result.getIndex()] = true;
+            mergedResult.addAll(result);
+        }
+
+        for (int i = 1; i <= count; i++) {
+            if (!merged[i]) {
+                throw new IOException(
+                        String.format("Shard %d/%d is missing.", i, count));
+            }
+        }
+
+        return mergedResult;
+    }
+
+    /**
+     * Escape tabs, line breaks and backslashes.
+     *
+     * @param aText Text to escape. Null is written as an empty field.
+     * @return Escaped text.
+     */
+    private static String escape(String aText)
+    {
+        if (aText == null) {
+            return "";
+        }
+
+        final StringBuilder builder = new StringBuilder(aText.length());
+        for (char c : aText.toCharArray()) {
+            switch (c) {
+            case '\\':
+                builder.append("\\\\");
+                break;
+            case '\t':
+                builder.append("\\t");
+                break;
+            case '\n':
+                builder.append("\\n");
+                break;
+            case '\r':
+                builder.append("\\r");
+                break;
+            default:
+                builder.append(c);
+                break;
+            }
+        }
+
+        return builder.toString();
+    }
+
+    /**
+     * Unescape text escaped by {@link #escape(String)}.
+     *
+     * @param aText Escaped text.
+     * @return Unescaped text, or null if the text is empty.
+     */
+    private static String unescape(String aText)
+    {
+        if (aText.length() == 0) {
+            return null;
+        }
+
+        final StringBuilder builder = new StringBuilder(aText.length());
+        for (int i = 0; i < aText.length(); i++) {
+            final char c = aText.charAt(i);
+            if (c != '\\' || i + 1 == aText.length()) {
+                builder.append(c);
+                continue;
+            }
+
+            i++;
+            switch (aText.charAt(i)) {
+            case 't':
+                builder.append('\t');
+                break;
+            case 'n':
+                builder.append('\n');
+                break;
+            case 'r':
+                builder.append('\r');
+                break;
+            default:
+                builder.append(aText.charAt(i));
+                break;
+            }
+        }
+
+        return builder.toString();
+    }
+
+    /**
+     * Write the result.
+     *
+     * @param aWriter Writer to write the result. It is not closed.
+     * @throws IOException If I/O error occurs.
+     */
+    /* package */ void write(Writer aWriter) throws IOException
+    {
+        final PrintWriter writer = new PrintWriter(aWriter);
+        writer.print(HEADER + "\n");
+        writer.printf("%s\t%d\t%d\n", RECORD_SHARD, mIndex, mCount);
+
+        for (Map.Entry<String, SortedSet<LocalizedMessage>> entry
+                : mViolations.entrySet())
+        {
+            writer.printf("%s\t%s\n", RECORD_FILE, escape(entry.getKey()));
+
+            for (LocalizedMessage violation : entry.getValue()) {
+                writer.printf("%s\t%d\t%d\t%s\t%s\t%s\t%s\t%s\n",
+                        RECORD_ERROR,
+                        violation.getLineNo(),
+                        violation.getColumnNo(),
+                        escape(violation.getSeverityLevel().getName()),
+                        escape(violation.getSourceName()),
+                        escape(violation.getModuleId()),
+                        escape(violation.getKey()),
+                        escape(violation.getMessage()));
+            }
+        }
+
+        for (Map.Entry<String, String> entry : mExceptions.entrySet()) {
+            writer.printf("%s\t%s\t%s\n", RECORD_EXCEPTION,
+                    escape(entry.getKey()), escape(entry.getValue()));
+        }
+
+        writer.flush();
+        if (writer.checkError()) {
+            throw new IOException("Failed to write shard result.");
+        }
+    }
+
+    /**
+     * Read violation record.
+     *
+     * @param aFields Fields of the record.
+     * @return Violation.
+     * @throws IOException If the record is invalid.
+     */
+    private static LocalizedMessage readViolation(String[] aFields)
+        throws IOException
+    {
+        final String sourceName = unescape(aFields[ERROR_SOURCE_FIELD]);
+        final Class<?> sourceClass;
+        try {
+            sourceClass = Class.forName(sourceName, false,
+                    ShardResult.class.getClassLoader());
+        }
+        catch (final ClassNotFoundException e) {
+            throw new IOException("Unknown source : " + sourceName, e);
+        }
+
+        return Violations.create(
+                Integer.parseInt(aFields[ERROR_LINE_FIELD]),
+                Integer.parseInt(aFields[ERROR_COLUMN_FIELD]),
+                unescape(aFields[ERROR_KEY_FIELD]),
+                unescape(aFields[ERROR_MESSAGE_FIELD]),
+                SeverityLevel.getInstance(
+                        unescape(aFields[ERROR_SEVERITY_FIELD])),
+                unescape(aFields[ERROR_MODULE_ID_FIELD]),
+                sourceClass);
+    }
+
+    /**
+     * Read the result.
+     *
+     * @param aReader Reader to read the result. It is not closed.
+     * @return Read result.
+     * @throws IOException If I/O error occurs or the result is invalid.
+     */
+    /* package */ static ShardResult read(Reader aReader) throws IOException
+    {
+        final BufferedReader reader = new BufferedReader(aReader);
+        if (!HEADER.equals(reader.readLine())) {
+            throw new IOException("Not a shard result.");
+        }
+
+        final String shardLine = reader.readLine();
+        final String[] shardFields = (shardLine == null)
+                ? new String[0]
+                : shardLine.split("\t", -1);
+        if (shardFields.length != SHARD_FIELD_COUNT
+                || !RECORD_SHARD.equals(shardFields[TYPE_FIELD]))
+        {
+            throw new IOException("Shard record is missing.");
+        }
+
+        final ShardResult result;
+        try {
+            result = new ShardResult(
+                    Integer.parseInt(shardFields[SHARD_INDEX_FIELD]),
+                    Integer.parseInt(shardFields[SHARD_COUNT_FIELD]));
+
+            String fileName = null;
+            for (String line = reader.readLine(); line != null;
+                    line = reader.readLine())
+            {
+                final String[] fields = line.split("\t", -1);
+
+                if (RECORD_FILE.equals(fields[TYPE_FIELD])
+                        && fields.length == FILE_FIELD_COUNT)
+                {
+                    fileName = unescape(fields[FILE_NAME_FIELD]);
+                    result.addViolations(fileName,
+                            Collections.<LocalizedMessage>emptyList());
+                }
+                else if (RECORD_ERROR.equals(fields[TYPE_FIELD])
+                        && fields.length == ERROR_FIELD_COUNT
+                        && fileName != null)
+                {
+                    result.addViolations(fileName,
+                            Collections.singleton(readViolation(fields)));
+                }
+                else if (RECORD_EXCEPTION.equals(fields[TYPE_FIELD])
+                        && fields.length == EXCEPTION_FIELD_COUNT)
+                {
+                    result.addException(
+                            unescape(fields[EXCEPTION_FILE_FIELD]),
+                            unescape(fields[EXCEPTION_DESCRIPTION_FIELD]));
+                }
+                else {
+                    throw new IOException("Invalid record : " + line);
+                }
+            }
+        }
+        catch (final NumberFormatException e) {
+            throw new IOException("Invalid number in shard result.", e);
+        }
+
+        return result;
+    }
+}
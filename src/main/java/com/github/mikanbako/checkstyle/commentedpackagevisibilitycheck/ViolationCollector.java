@@ -0,0 +1,145 @@
+/* Commented package visibility check (Checkstyle plugin)
+    Copyright (C) 2012  Keita Kita
+
+    This library is free software; you can redistribute it and/or
+    modify it under the terms of the GNU Lesser General Public
+    License as published by the Free Software Foundation; either
+    version 2.1 of the License, or (at your option) any later version.
+
+    This library is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+    Lesser General Public License for more details.
+
+    You should have received a copy of the GNU Lesser General Public
+    License along with this library; if not, write to the Free Software
+    Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+package com.github.mikanbako.checkstyle.commentedpackagevisibilitycheck;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.SortedSet;
+import java.util.TreeSet;
+
+import com.puppycrawl.tools.checkstyle.api.AuditEvent;
+import com.puppycrawl.tools.checkstyle.api.AuditListener;
+import com.puppycrawl.tools.checkstyle.api.LocalizedMessage;
+
+/**
+ * <p>Listener that collects violations of each file.</p>
+ *
+ * <p>Files that were audited without any violation are also collected
+ * with an empty set of violations.</p>
+ *
+ * @author Keita Kita
+ */
+/* package */ final class ViolationCollector implements AuditListener
+{
+    /**
+     * Violations of each file in order of audit.
+     */
+    private final Map<String, SortedSet<LocalizedMessage>> mViolations =
+            new LinkedHashMap<String, SortedSet<LocalizedMessage>>();
+
+    /**
+     * Exceptions of each file in order of audit.
+     */
+    private final Map<String, Throwable> mExceptions =
+            new LinkedHashMap<String, Throwable>();
+
+    /**
+     * Get violations collected since the last clearing.
+     *
+     * @return Violations of each file.
+     */
+    /* package */ Map<String, SortedSet<LocalizedMessage>> getViolations()
+    {
+        return Collections.unmodifiableMap(mViolations);
+    }
+
+    /**
+     * Get exceptions collected since the last clearing.
+     *
+     * @return Exceptions of each file.
+     */
+    /* package */ Map<String, Throwable> getExceptions()
+    {
+        return Collections.unmodifiableMap(mExceptions);
+    }
+
+    /**
+     * Clear collected violations and exceptions.
+     */
+    /* package */ void clear()
+    {
+        mViolations.clear();
+        mExceptions.clear();
+    }
+
+    /**
+     * Get violations of the file, creating them if needed.
+     *
+     * @param aFileName Name of file.
+     * @return Violations of the file.
+     */
+    private SortedSet<LocalizedMessage> getViolationsOf(String aFileName)
+    {
+        SortedSet<LocalizedMessage> violations = mViolations.get(aFileName);
+        if (violations == null) {
+            violations = new TreeSet<LocalizedMessage>();
+            mViolations.put(aFileName, violations);
+        }
+
+        return violations;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public void auditStarted(AuditEvent aEvt)
+    {
+        // no operation.
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public void auditFinished(AuditEvent aEvt)
+    {
+        // no operation.
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public void fileStarted(AuditEvent aEvt)
+    {
+        getViolationsOf(aEvt.getFileName());
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public void fileFinished(AuditEvent aEvt)
+    {
+        // no operation.
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public void addError(AuditEvent aEvt)
+    {
+        getViolationsOf(aEvt.getFileName()).add(aEvt.getLocalizedMessage());
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public void addException(AuditEvent aEvt, Throwable aThrowable)
+    {
+        mExceptions.put(aEvt.getFileName(), aThrowable);
+    }
+}
@@ -0,0 +1,111 @@
+/* Commented package visibility check (Checkstyle plugin)
+    Copyright (C) 2012  Keita Kita
+
+    This library is free software; you can redistribute it and/or
+    modify it under the terms of the GNU Lesser General Public
+    License as published by the Free Software Foundation; either
+    version 2.1 of the License, or (at your option) any later version.
+
+    This library is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+    Lesser General Public License for more details.
+
+    You should have received a copy of the GNU Lesser General Public
+    License along with this library; if not, write to the Free Software
+    Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+package com.github.mikanbako.checkstyle.commentedpackagevisibilitycheck;
+
+import java.util.Collections;
+import java.util.SortedSet;
+import java.util.TreeSet;
+
+import com.puppycrawl.tools.checkstyle.api.LocalizedMessage;
+
+/**
+ * Difference of violations of a file between two audits.
+ *
+ * @author Keita Kita
+ */
+/* package */ final class ViolationDelta
+{
+    /**
+     * Name of file.
+     */
+    private final String mFileName;
+
+    /**
+     * Violations that appeared.
+     */
+    private final SortedSet<LocalizedMessage> mAdded;
+
+    /**
+     * Violations that disappeared.
+     */
+    private final SortedSet<LocalizedMessage> mRemoved;
+
+    /**
+     * Constructor.
+     *
+     * @param aFileName Name of file.
+     * @param aPrevious Violations of the previous audit.
+     * @param aCurrent Violations of the current audit.
+     */
+    /* package */ ViolationDelta(String aFileName,
+            SortedSet<LocalizedMessage> aPrevious,
+            SortedSet<LocalizedMessage> aCurrent)
+    {
+        mFileName = aFileName;
+
+        final SortedSet<LocalizedMessage> added =
+                new TreeSet<LocalizedMessage>(aCurrent);
+        added.removeAll(aPrevious);
+        mAdded = Collections.unmodifiableSortedSet(added);
+
+        final SortedSet<LocalizedMessage> removed =
+                new TreeSet<LocalizedMessage>(aPrevious);
+        removed.removeAll(aCurrent);
+        mRemoved = Collections.unmodifiableSortedSet(removed);
+    }
+
+    /**
+     * Get name of file.
+     *
+     * @return Name of file.
+     */
+    /* package */ String getFileName()
+    {
+        return mFileName;
+    }
+
+    /**
+     * Get violations that appeared.
+     *
+     * @return Violations that appeared.
+     */
+    /* package */ SortedSet<LocalizedMessage> getAdded()
+    {
+        return mAdded;
+    }
+
+    /**
+     * Get violations that disappeared.
+     *
+     * @return Violations that disappeared.
+     */
+    /* package */ SortedSet<LocalizedMessage> getRemoved()
+    {
+        return mRemoved;
+    }
+
+    /**
+     * Whether violations did not change.
+     *
+     * @return True if violations did not change, otherwise false.
+     */
+    /* package */ boolean isEmpty()
+    {
+        return mAdded.isEmpty() && mRemoved.isEmpty();
+    }
+}
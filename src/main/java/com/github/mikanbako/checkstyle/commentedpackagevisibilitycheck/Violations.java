@@ -0,0 +1,83 @@
+/* Commented package visibility check (Checkstyle plugin)
+    Copyright (C) 2012  Keita Kita
+
+    This library is free software; you can redistribute it and/or
+    modify it under the terms of the GNU Lesser General Public
+    License as published by the Free Software Foundation; either
+    version 2.1 of the License, or (at your option) any later version.
+
+    This library is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+    Lesser General Public License for more details.
+
+    You should have received a copy of the GNU Lesser General Public
+    License along with this library; if not, write to the Free Software
+    Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+package com.github.mikanbako.checkstyle.commentedpackagevisibilitycheck;
+
+import com.puppycrawl.tools.checkstyle.api.LocalizedMessage;
+import com.puppycrawl.tools.checkstyle.api.SeverityLevel;
+
+/**
+ * Utilities of violations.
+ *
+ * @author Keita Kita
+ */
+/* package */ final class Violations
+{
+    /**
+     * Custom message that shows the first argument as it is.
+     */
+    private static final String MESSAGE_AS_ARGUMENT = "{0}";
+
+    /**
+     * Constructor.
+     */
+    private Violations()
+    {
+        // no operation.
+    }
+
+    /**
+     * Create violation whose message is already localized.
+     *
+     * @param aLineNo Line number.
+     * @param aColumnNo Column number.
+     * @param aKey Key of message.
+     * @param aMessage Localized message.
+     * @param aSeverityLevel Severity level.
+     * @param aModuleId Id of module. It may be null.
+     * @param aSourceClass Class of the source of the violation.
+     * @return Created violation.
+     */
+    /* package */ static LocalizedMessage create(int aLineNo, int aColumnNo,
+            String aKey, String aMessage, SeverityLevel aSeverityLevel,
+            String aModuleId, Class<?> aSourceClass)
+    {
+        final String bundle = (aSourceClass.getPackage() == null)
+                ? "messages"
+                : aSourceClass.getPackage().getName() + ".messages";
+
+        return new LocalizedMessage(aLineNo, aColumnNo, bundle, aKey,
+                new Object[] {aMessage}, aSeverityLevel, aModuleId,
+                aSourceClass, MESSAGE_AS_ARGUMENT);
+    }
+
+    /**
+     * Move violation to the other line.
+     *
+     * @param aViolation Violation.
+     * @param aLineNo Line number to move to.
+     * @param aSourceClass Class of the source of the violation.
+     * @return Moved violation.
+     */
+    /* package */ static LocalizedMessage moveTo(LocalizedMessage aViolation,
+            int aLineNo, Class<?> aSourceClass)
+    {
+        return create(aLineNo, aViolation.getColumnNo(), aViolation.getKey(),
+                aViolation.getMessage(), aViolation.getSeverityLevel(),
+                aViolation.getModuleId(), aSourceClass);
+    }
+}
@@ -0,0 +1,236 @@
+/* Commented package visibility check (Checkstyle plugin)
+    Copyright (C) 2012  Keita Kita
+
+    This library is free software; you can redistribute it and/or
+    modify it under the terms of the GNU Lesser General Public
+    License as published by the Free Software Foundation; either
+    version 2.1 of the License, or (at your option) any later version.
+
+    This library is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+    Lesser General Public License for more details.
+
+    You should have received a copy of the GNU Lesser General Public
+    License along with this library; if not, write to the Free Software
+    Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+package com.github.mikanbako.checkstyle.commentedpackagevisibilitycheck;
+
+import static java.nio.file.StandardWatchEventKinds.ENTRY_CREATE;
+import static java.nio.file.StandardWatchEventKinds.ENTRY_DELETE;
+import static java.nio.file.StandardWatchEventKinds.OVERFLOW;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * <p>Changes of files collected until they stop for the debounce time.</p>
+ *
+ * <p>The batch is applied to {@link IncrementalAuditor} at once, so that
+ * a file changed several times is audited only once.</p>
+ *
+ * @author Keita Kita
+ */
+/* package */ final class WatchBatch
+{
+    /**
+     * Extension of Java file.
+     */
+    private static final String JAVA_FILE_EXTENSION = ".java";
+
+    /**
+     * Created or modified Java files.
+     */
+    private final Set<File> mChangedFiles = new LinkedHashSet<File>();
+
+    /**
+     * Deleted files and directories.
+     */
+    private final Set<File> mDeletedFiles = new LinkedHashSet<File>();
+
+    /**
+     * Created directories.
+     */
+    private final Set<Path> mCreatedDirectories = new LinkedHashSet<Path>();
+
+    /**
+     * Whether events were lost.
+     */
+    private boolean mOverflowed;
+
+    /**
+     * Whether the path is a Java file.
+     *
+     * @param aPath Path.
+     * @return True if the path is a Java file, otherwise false.
+     */
+    /* package */ static boolean isJavaFile(Path aPath)
+    {
+        return aPath.getFileName().toString().endsWith(JAVA_FILE_EXTENSION);
+    }
+
+    /**
+     * Collect changes.
+     *
+     * Block until the first change, and then collect following changes
+     * until they stop for the debounce time.
+     *
+     * @param aWatchService Service to watch directories.
+     * @param aDirectories Watched directories of each key. Keys that are
+     *  no longer valid are removed.
+     * @param aDebounceMillis Time to wait for following changes
+     *  in milliseconds.
+     * @return Collected changes.
+     * @throws InterruptedException If the thread is interrupted.
+     */
+    /* package */ static WatchBatch collect(WatchService aWatchService,
+            Map<WatchKey, Path> aDirectories, long aDebounceMillis)
+        throws InterruptedException
+    {
+        final WatchBatch batch = new WatchBatch();
+
+        WatchKey key = aWatchService.take();
+        while (key != null) {
+            final Path directory = aDirectories.get(key);
+            for (WatchEvent<?> event : key.pollEvents()) {
+                batch.add(directory, event);
+            }
+            if (!key.reset()) {
+                aDirectories.remove(key);
+            }
+
+            key = aWatchService.poll(aDebounceMillis, TimeUnit.MILLISECONDS);
+        }
+
+        return batch;
+    }
+
+    /**
+     * Add a change event.
+     *
+     * @param aDirectory Directory of the event, or null if the directory
+     *  is no longer watched.
+     * @param aEvent Event.
+     */
+    /* package */ void add(Path aDirectory, WatchEvent<?> aEvent)
+    {
+        if (aEvent.kind() == OVERFLOW) {
+            mOverflowed = true;
+            return;
+        }
+        if (aDirectory == null) {
+            return;
+        }
+
+        final Path path = aDirectory.resolve((Path) aEvent.context());
+        final File file = path.toFile().getAbsoluteFile();
+
+        if (aEvent.kind() == ENTRY_DELETE) {
+            addDeleted(file);
+        }
+        else if (Files.isDirectory(path)) {
+            if (aEvent.kind() == ENTRY_CREATE) {
+                mCreatedDirectories.add(path);
+            }
+        }
+        else if (isJavaFile(path)) {
+            addChanged(file);
+        }
+    }
+
+    /**
+     * Add a created or modified Java file.
+     *
+     * @param aFile Created or modified Java file.
+     */
+    /* package */ void addChanged(File aFile)
+    {
+        mDeletedFiles.remove(aFile);
+        mChangedFiles.add(aFile);
+    }
+
+    /**
+     * Add a deleted file or directory.
+     *
+     * @param aFile Deleted file or directory.
+     */
+    /* package */ void addDeleted(File aFile)
+    {
+        mChangedFiles.remove(aFile);
+        mDeletedFiles.add(aFile);
+    }
+
+    /**
+     * Get created directories, whose files are not notified.
+     *
+     * @return Created directories.
+     */
+    /* package */ Set<Path> getCreatedDirectories()
+    {
+        return Collections.unmodifiableSet(mCreatedDirectories);
+    }
+
+    /**
+     * Whether events were lost.
+     *
+     * @return True if events were lost, otherwise false.
+     */
+    /* package */ boolean isOverflowed()
+    {
+        return mOverflowed;
+    }
+
+    /**
+     * Apply changes to the auditor.
+     *
+     * @param aAuditor Auditor.
+     * @param aExistingFiles All Java files found by scanning watched
+     *  directories again. It is used only if events were lost.
+     * @return Differences of violations.
+     */
+    /* package */ List<ViolationDelta> apply(IncrementalAuditor aAuditor,
+            Set<File> aExistingFiles)
+    {
+        if (mOverflowed) {
+            // Files deleted while events were lost are not notified.
+            for (String fileName : aAuditor.getFileNames()) {
+                final File file = new File(fileName);
+                if (!aExistingFiles.contains(file)) {
+                    addDeleted(file);
+                }
+            }
+            for (File file : aExistingFiles) {
+                addChanged(file);
+            }
+        }
+
+        // Files may be deleted after their change events.
+        final Iterator<File> iterator = mChangedFiles.iterator();
+        while (iterator.hasNext()) {
+            final File file = iterator.next();
+            if (!file.isFile()) {
+                iterator.remove();
+                mDeletedFiles.add(file);
+            }
+        }
+
+        final List<ViolationDelta> deltas =
+                new ArrayList<ViolationDelta>(aAuditor.remove(mDeletedFiles));
+        deltas.addAll(aAuditor.audit(mChangedFiles));
+
+        return deltas;
+    }
+}
@@ -0,0 +1,149 @@
+/* Commented package visibility check (Checkstyle plugin)
+    Copyright (C) 2012  Keita Kita
+
+    This library is free software; you can redistribute it and/or
+    modify it under the terms of the GNU Lesser General Public
+    License as published by the Free Software Foundation; either
+    version 2.1 of the License, or (at your option) any later version.
+
+    This library is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+    Lesser General Public License for more details.
+
+    You should have received a copy of the GNU Lesser General Public
+    License along with this library; if not, write to the Free Software
+    Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+package com.github.mikanbako.checkstyle.commentedpackagevisibilitycheck;
+
+import java.io.File;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.SortedSet;
+import java.util.TreeSet;
+
+import com.puppycrawl.tools.checkstyle.TreeWalker;
+import com.puppycrawl.tools.checkstyle.api.Check;
+import com.puppycrawl.tools.checkstyle.api.DetailAST;
+import com.puppycrawl.tools.checkstyle.api.FileContents;
+import com.puppycrawl.tools.checkstyle.api.FileText;
+import com.puppycrawl.tools.checkstyle.api.LocalizedMessage;
+import com.puppycrawl.tools.checkstyle.api.LocalizedMessages;
+
+/**
+ * Runner that applies a check to a source in memory, like
+ * {@link TreeWalker} does.
+ *
+ * @author Keita Kita
+ */
+public final class CheckRunner
+{
+    /**
+     * Constructor.
+     */
+    private CheckRunner()
+    {
+        // no operation.
+    }
+
+    /**
+     * Split source into lines.
+     *
+     * @param aSource Source.
+     * @return Lines of the source.
+     */
+    public static String[] toLines(String aSource)
+    {
+        return aSource.split("\n", -1);
+    }
+
+    /**
+     * Parse the source.
+     *
+     * @param aContents Contents of the source.
+     * @return Root AST.
+     * @throws Exception If the source cannot be parsed.
+     */
+    public static DetailAST parse(FileContents aContents) throws Exception
+    {
+        return TreeWalker.parse(aContents);
+    }
+
+    /**
+     * Apply the check to the source.
+     *
+     * @param aCheck Configured and initialized check.
+     * @param aSource Source.
+     * @return Violations.
+     * @throws Exception If the source cannot be parsed.
+     */
+    public static SortedSet<LocalizedMessage> run(Check aCheck, String aSource)
+        throws Exception
+    {
+        final FileContents contents = new FileContents(FileText.fromLines(
+                new File("Generated.java"), Arrays.asList(toLines(aSource))));
+        final DetailAST rootAST = parse(contents);
+
+        final Set<Integer> tokenTypes = new HashSet<Integer>();
+        for (int tokenType : aCheck.getDefaultTokens()) {
+            tokenTypes.add(tokenType);
+        }
+
+        final LocalizedMessages messages = new LocalizedMessages();
+        aCheck.setMessages(messages);
+        aCheck.setFileContents(contents);
+        aCheck.beginTree(rootAST);
+        for (DetailAST ast = rootAST; ast != null;
+                ast = ast.getNextSibling())
+        {
+            walk(aCheck, ast, tokenTypes);
+        }
+        aCheck.finishTree(rootAST);
+
+        return new TreeSet<LocalizedMessage>(messages.getMessages());
+    }
+
+    /**
+     * Visit the AST and its descendants.
+     *
+     * @param aCheck Check.
+     * @param aAST AST to visit.
+     * @param aTokenTypes Token types that the check visits.
+     */
+    private static void walk(Check aCheck, DetailAST aAST,
+            Set<Integer> aTokenTypes)
+    {
+        final boolean visited = aTokenTypes.contains(aAST.getType());
+        if (visited) {
+            aCheck.visitToken(aAST);
+        }
+        for (DetailAST child = aAST.getFirstChild(); child != null;
+                child = child.getNextSibling())
+        {
+            walk(aCheck, child, aTokenTypes);
+        }
+        if (visited) {
+            aCheck.leaveToken(aAST);
+        }
+    }
+
+    /**
+     * Convert violations to comparable strings of line, key and message.
+     *
+     * @param aMessages Violations.
+     * @return Strings of violations.
+     */
+    public static SortedSet<String> toStrings(
+            Iterable<LocalizedMessage> aMessages)
+    {
+        final SortedSet<String> strings = new TreeSet<String>();
+        for (LocalizedMessage message : aMessages) {
+            strings.add(String.format("%d: %s: %s", message.getLineNo(),
+                    message.getKey(), message.getMessage()));
+        }
+
+        return strings;
+    }
+}
@@ -20,6 +20,7 @@ package com.github.mikanbako.checkstyle.commentedpackagevisibilitycheck;
 import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.File;
+import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.InputStreamReader;
 import java.io.LineNumberReader;
@@ -30,8 +31,11 @@ import java.util.Locale;
 
 import junit.framework.Assert;
 
+import org.apache.commons.beanutils.ConversionException;
+import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
 
 import com.puppycrawl.tools.checkstyle.Checker;
 import com.puppycrawl.tools.checkstyle.DefaultConfiguration;
@@ -115,6 +119,11 @@ public class CommentedPackageVisibilityCheckTest
     private static final String PROPERTY_TEST_INPUTS_DIRECTORY =
             "testinputs.dir";
 
+    /**
+     * Folder to write report files.
+     */
+    private final TemporaryFolder mFolder = new TemporaryFolder();
+
     /**
      * OutputStream to store messages.
      */
@@ -129,10 +138,20 @@ public class CommentedPackageVisibilityCheckTest
      * {@inheritDoc}
      */
     @Before
-    public void setUp()
+    public void setUp() throws IOException
     {
         mByteArrayOutputStream = new ByteArrayOutputStream();
         mStream = new PrintStream(mByteArrayOutputStream);
+        mFolder.create();
+    }
+
+    /**
+     * Delete the folder to write report files.
+     */
+    @After
+    public void tearDown()
+    {
+        mFolder.delete();
     }
 
     /**
@@ -169,6 +188,43 @@ public class CommentedPackageVisibilityCheckTest
     private void verify(Configuration aConfiguration, String aFilePath,
             String[] aExpected)
         throws CheckstyleException, IOException
+    {
+        verify(aConfiguration, aFilePath, aExpected, aExpected.length);
+    }
+
+    /**
+     * Count expected messages at error severity. Messages of profiles,
+     * that are tagged with the name of profile, are at info severity.
+     *
+     * @param aExpected Expected messages.
+     * @return Count of messages at error severity.
+     */
+    private static int countErrors(String[] aExpected)
+    {
+        int errorCount = 0;
+        for (String message : aExpected) {
+            if (!message.contains(": [")) {
+                errorCount++;
+            }
+        }
+
+        return errorCount;
+    }
+
+    /**
+     * Verify specified file using specified configuration.
+     *
+     * @param aConfiguration Configuration for verification.
+     * @param aFilePath File for verification.
+     * @param aExpected Expected messages.
+     * @param aExpectedErrorCount Expected count of messages at error
+     *  severity.
+     * @throws CheckstyleException If error within Checkstyle occurs.
+     * @throws IOException If I/O error occurs.
+     */
+    private void verify(Configuration aConfiguration, String aFilePath,
+            String[] aExpected, int aExpectedErrorCount)
+        throws CheckstyleException, IOException
     {
         final DefaultConfiguration parentContifugation =
                 new DefaultConfiguration("configuration");
@@ -202,7 +258,7 @@ public class CommentedPackageVisibilityCheckTest
         }
 
         Assert.assertEquals("Unexpected error : " + reader.readLine(),
-                aExpected.length, errorCount);
+                aExpectedErrorCount, errorCount);
 
         checker.destroy();
     }
@@ -400,4 +456,387 @@ public class CommentedPackageVisibilityCheckTest
                         + "TestInput.java"),
                 expected);
     }
+
+    /**
+     * Test when formats of field and method are specified.
+     *
+     * Format of fields and methods is "&#x2f;&#x2a; pkg &#x2a;&#x2f;".
+     *
+     * @throws Exception If Exception occurs.
+     */
+    @Test
+    public void testWithFieldAndMethodFormat() throws Exception
+    {
+        final DefaultConfiguration checkConfig = createConfiguration();
+        checkConfig.addAttribute("fieldFormat", "/\\* pkg \\*/");
+        checkConfig.addAttribute("methodFormat", "/\\* pkg \\*/");
+
+        final String[] expected = {
+            "10: 'OtherFormatInterface' "
+                    + "should be commented for package visibility.",
+            "17: 'otherFormatField' "
+                    + "should be commented for package visibility.",
+            "19: Is visibility of "
+                    + "'invalidCommentedPackageVisibilityField' package?",
+            "28: 'CommentedPackageVisibilityCheckPerKindFormatTestInput' "
+                    + "should be commented for package visibility.",
+            "38: 'otherFormatMethod' "
+                    + "should be commented for package visibility.",
+            "43: Is visibility of "
+                    + "'invalidCommentedPackageVisibilityMethod' package?",
+        };
+
+        verify(checkConfig,
+                getPath("CommentedPackageVisibilityCheckPerKindFormat"
+                        + "TestInput.java"),
+                expected);
+    }
+
+    /**
+     * Test when formats of class and constructor are specified.
+     *
+     * Format of classes and constructors is "&#x2f;&#x2a; pkg &#x2a;&#x2f;".
+     *
+     * @throws Exception If Exception occurs.
+     */
+    @Test
+    public void testWithClassAndCtorFormat() throws Exception
+    {
+        final DefaultConfiguration checkConfig = createConfiguration();
+        checkConfig.addAttribute("classFormat", "/\\* pkg \\*/");
+        checkConfig.addAttribute("ctorFormat", "/\\* pkg \\*/");
+
+        final String[] expected = {
+            "3: 'CommentedPackageVisibilityCheckPerKindFormatTestInput' "
+                    + "should be commented for package visibility.",
+            "5: 'CommentedPackageVisibilityClass' "
+                    + "should be commented for package visibility.",
+            "15: 'commentedPackageVisibilityField' "
+                    + "should be commented for package visibility.",
+            "21: Is visibility of 'otherFormatPublicField' package?",
+            "23: 'CommentedPackageVisibilityCheckPerKindFormatTestInput' "
+                    + "should be commented for package visibility.",
+            "33: 'commentedPackageVisibilityMethod' "
+                    + "should be commented for package visibility.",
+        };
+
+        verify(checkConfig,
+                getPath("CommentedPackageVisibilityCheckPerKindFormat"
+                        + "TestInput.java"),
+                expected);
+    }
+
+    /**
+     * Test definitions in nested classes when effective visibility is not
+     * checked.
+     *
+     * @throws Exception If Exception occurs.
+     */
+    @Test
+    public void testWithoutCheckingEffectiveVisibility() throws Exception
+    {
+        final DefaultConfiguration checkConfig = createConfiguration();
+
+        final String[] expected = {
+            "7: 'fieldInPrivateClass' "
+                    + "should be commented for package visibility.",
+            "9: Is visibility of "
+                    + "'invalidCommentedMethodInPrivateClass' package?",
+            "14: 'ClassInPrivateClass' "
+                    + "should be commented for package visibility.",
+            "16: 'methodInClassInPrivateClass' "
+                    + "should be commented for package visibility.",
+            "25: 'fieldInProtectedClass' "
+                    + "should be commented for package visibility.",
+            "29: 'methodInPrivateClass' "
+                    + "should be commented for package visibility.",
+            "38: 'fieldInPackageClass' "
+                    + "should be commented for package visibility.",
+            "44: 'fieldInAnonymousClass' "
+                    + "should be commented for package visibility.",
+            "47: 'LocalClass' "
+                    + "should be commented for package visibility.",
+            "49: 'methodInLocalClass' "
+                    + "should be commented for package visibility.",
+            "59: 'methodInEnumConstant' "
+                    + "should be commented for package visibility.",
+            "65: 'methodInEnum' "
+                    + "should be commented for package visibility.",
+        };
+
+        verify(checkConfig,
+                getPath("CommentedPackageVisibilityCheckEffectiveVisibility"
+                        + "TestInput.java"),
+                expected);
+    }
+
+    /**
+     * Test definitions in nested classes when effective visibility is
+     * checked.
+     *
+     * @throws Exception If Exception occurs.
+     */
+    @Test
+    public void testWithCheckingEffectiveVisibility() throws Exception
+    {
+        final DefaultConfiguration checkConfig = createConfiguration();
+        checkConfig.addAttribute(
+                "checkEffectiveVisibility", Boolean.TRUE.toString());
+
+        final String[] expected = {
+            "9: Is visibility of 'invalidCommentedMethodInPrivateClass' "
+                    + "package?",
+            "25: 'fieldInProtectedClass' "
+                    + "should be commented for package visibility.",
+            "38: 'fieldInPackageClass' "
+                    + "should be commented for package visibility.",
+            "65: 'methodInEnum' "
+                    + "should be commented for package visibility.",
+        };
+
+        verify(checkConfig,
+                getPath("CommentedPackageVisibilityCheckEffectiveVisibility"
+                        + "TestInput.java"),
+                expected);
+    }
+
+    /**
+     * Test that overrides of the directory are applied.
+     *
+     * Format is "&#x2f;&#x2a; pkg &#x2a;&#x2f;" and latter white space is
+     * required.
+     *
+     * @throws Exception If Exception occurs.
+     */
+    @Test
+    public void testWithDirectoryOverrides() throws Exception
+    {
+        final DefaultConfiguration checkConfig = createConfiguration();
+        checkConfig.addAttribute(
+                "overridesFile", getPath("overrides/overrides.properties"));
+
+        final String[] expected = {
+            "5: 'commentedWithOtherFormatField' "
+                    + "should be commented for package visibility.",
+            "7: Comment of 'commentedWithoutWhiteSpaceField' "
+                    + "for package visibility should be add letter whitespace.",
+        };
+
+        verify(checkConfig,
+                getPath("overrides/module_pkg/PkgFormatTestInput.java"),
+                expected);
+    }
+
+    /**
+     * Test that format of the directory override is used in place of
+     * per-kind formats.
+     *
+     * @throws Exception If Exception occurs.
+     */
+    @Test
+    public void testWithDirectoryOverridesAndPerKindFormat() throws Exception
+    {
+        final DefaultConfiguration checkConfig = createConfiguration();
+        checkConfig.addAttribute(
+                "overridesFile", getPath("overrides/overrides.properties"));
+        checkConfig.addAttribute("classFormat", "/\\* type \\*/");
+        checkConfig.addAttribute("fieldFormat", "/\\* field \\*/");
+
+        final String[] expected = {
+            "5: 'commentedWithOtherFormatField' "
+                    + "should be commented for package visibility.",
+            "7: Comment of 'commentedWithoutWhiteSpaceField' "
+                    + "for package visibility should be add letter whitespace.",
+        };
+
+        verify(checkConfig,
+                getPath("overrides/module_pkg/PkgFormatTestInput.java"),
+                expected);
+    }
+
+    /**
+     * Test that overrides of the inner directory are merged with
+     * overrides of the outer directory.
+     *
+     * Format is "&#x2f;&#x2a; pkg &#x2a;&#x2f;" and latter white space is not
+     * required.
+     *
+     * @throws Exception If Exception occurs.
+     */
+    @Test
+    public void testWithNestedDirectoryOverrides() throws Exception
+    {
+        final DefaultConfiguration checkConfig = createConfiguration();
+        checkConfig.addAttribute(
+                "overridesFile", getPath("overrides/overrides.properties"));
+
+        final String[] expected = {
+            "5: 'commentedWithOtherFormatField' "
+                    + "should be commented for package visibility.",
+        };
+
+        verify(checkConfig,
+                getPath("overrides/module_pkg/nowhitespace/"
+                        + "PkgFormatWithoutWhiteSpaceTestInput.java"),
+                expected);
+    }
+
+    /**
+     * Test that files out of overridden directories are checked with
+     * properties of the check.
+     *
+     * @throws Exception If Exception occurs.
+     */
+    @Test
+    public void testWithDirectoryOverridesForOtherDirectory()
+        throws Exception
+    {
+        final DefaultConfiguration checkConfig = createConfiguration();
+        checkConfig.addAttribute(
+                "overridesFile", getPath("overrides/overrides.properties"));
+
+        final String[] expected = {
+            "1: 'CommentedPackageVisibilityCheckDefaultPackageTestInput' "
+                    + "should be commented for package visibility.",
+            "3: 'NoCommentedPackageVisibilityClass' "
+                    + "should be commented for package visibility.",
+            "10: Is visibility of 'invalidCommentMethod' package?",
+        };
+
+        verify(checkConfig,
+                getPath("CommentedPackageVisibilityCheckDefaultPackage"
+                        + "TestInput.java"),
+                expected);
+    }
+
+    /**
+     * Test that a value other than true or false is rejected.
+     *
+     * @throws Exception If Exception occurs.
+     */
+    @Test(expected = ConversionException.class)
+    public void testWithInvalidBooleanInProfilesFile() throws Exception
+    {
+        new CommentedPackageVisibilityCheck().setProfilesFile(
+                getPath("profiles/invalid.properties"));
+    }
+
+    /**
+     * Test that profiles are evaluated in addition to the properties of
+     * the check.
+     *
+     * @throws Exception If Exception occurs.
+     */
+    @Test
+    public void testWithProfiles() throws Exception
+    {
+        final DefaultConfiguration checkConfig = createConfiguration();
+        checkConfig.addAttribute(
+                "profilesFile", getPath("profiles/profiles.properties"));
+
+        final String[] expected = {
+            "3: [migrated] 'ProfilesTestInput' "
+                    + "should be commented for package visibility.",
+            "5: [migrated] 'currentField' "
+                    + "should be commented for package visibility.",
+            "7: 'migratedField' should be commented for package visibility.",
+            "7: [lenient] 'migratedField' "
+                    + "should be commented for package visibility.",
+            "9: Comment of 'noWhiteSpaceField' "
+                    + "for package visibility should be add letter whitespace.",
+            "9: [migrated] 'noWhiteSpaceField' "
+                    + "should be commented for package visibility.",
+            "11: [migrated] Is visibility of 'publicField' package?",
+        };
+
+        // Violations of profiles are not errors.
+        verify(checkConfig, getPath("profiles/ProfilesTestInput.java"),
+                expected, countErrors(expected));
+    }
+
+    /**
+     * Test that the format of a profile is used for all kinds of
+     * definitions even if per-kind formats are specified.
+     *
+     * A profile without format uses per-kind formats of the check.
+     *
+     * @throws Exception If Exception occurs.
+     */
+    @Test
+    public void testWithProfilesAndPerKindFormat() throws Exception
+    {
+        final DefaultConfiguration checkConfig = createConfiguration();
+        checkConfig.addAttribute("fieldFormat", "/\\* pkg \\*/");
+        checkConfig.addAttribute(
+                "profilesFile", getPath("profiles/profiles.properties"));
+
+        final String[] expected = {
+            "3: [migrated] 'ProfilesTestInput' "
+                    + "should be commented for package visibility.",
+            "5: 'currentField' should be commented for package visibility.",
+            "5: [lenient] 'currentField' "
+                    + "should be commented for package visibility.",
+            "5: [migrated] 'currentField' "
+                    + "should be commented for package visibility.",
+            "7: 'migratedField' should be commented for package visibility.",
+            "7: [lenient] 'migratedField' "
+                    + "should be commented for package visibility.",
+            "9: 'noWhiteSpaceField' "
+                    + "should be commented for package visibility.",
+            "9: [lenient] 'noWhiteSpaceField' "
+                    + "should be commented for package visibility.",
+            "9: [migrated] 'noWhiteSpaceField' "
+                    + "should be commented for package visibility.",
+            "11: [migrated] Is visibility of 'publicField' package?",
+        };
+
+        verify(checkConfig, getPath("profiles/ProfilesTestInput.java"),
+                expected, countErrors(expected));
+    }
+
+    /**
+     * Test that count of violations of each profile is written when
+     * the audit finishes.
+     *
+     * @throws Exception If Exception occurs.
+     */
+    @Test
+    public void testWithProfilesReportFile() throws Exception
+    {
+        final File reportFile = mFolder.newFile("profiles.txt");
+        final DefaultConfiguration checkConfig = createConfiguration();
+        checkConfig.addAttribute(
+                "profilesFile", getPath("profiles/profiles.properties"));
+        checkConfig.addAttribute(
+                "profilesReportFile", reportFile.getPath());
+        final String[] expected = {
+            "3: [migrated] 'ProfilesTestInput' "
+                    + "should be commented for package visibility.",
+            "5: [migrated] 'currentField' "
+                    + "should be commented for package visibility.",
+            "7: 'migratedField' should be commented for package visibility.",
+            "7: [lenient] 'migratedField' "
+                    + "should be commented for package visibility.",
+            "9: Comment of 'noWhiteSpaceField' "
+                    + "for package visibility should be add letter whitespace.",
+            "9: [migrated] 'noWhiteSpaceField' "
+                    + "should be commented for package visibility.",
+            "11: [migrated] Is visibility of 'publicField' package?",
+        };
+
+        verify(checkConfig, getPath("profiles/ProfilesTestInput.java"),
+                expected, countErrors(expected));
+
+        final LineNumberReader reader = new LineNumberReader(
+                new InputStreamReader(new FileInputStream(reportFile),
+                        "UTF-8"));
+        try {
+            Assert.assertEquals("lenient=1", reader.readLine());
+            Assert.assertEquals("migrated=4", reader.readLine());
+            Assert.assertNull(reader.readLine());
+        }
+        finally {
+            reader.close();
+        }
+    }
 }
@@ -0,0 +1,378 @@
+/* Commented package visibility check (Checkstyle plugin)
+    Copyright (C) 2012  Keita Kita
+
+    This library is free software; you can redistribute it and/or
+    modify it under the terms of the GNU Lesser General Public
+    License as published by the Free Software Foundation; either
+    version 2.1 of the License, or (at your option) any later version.
+
+    This library is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+    Lesser General Public License for more details.
+
+    You should have received a copy of the GNU Lesser General Public
+    License along with this library; if not, write to the Free Software
+    Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+package com.github.mikanbako.checkstyle.commentedpackagevisibilitycheck;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Random;
+
+import junit.framework.Assert;
+
+import org.junit.Test;
+
+import com.puppycrawl.tools.checkstyle.DefaultConfiguration;
+
+/**
+ * Test for {@link CommentedPackageVisibilityIncrementalChecker}.
+ *
+ * @author Keita Kita
+ */
+public class CommentedPackageVisibilityIncrementalCheckerTest
+{
+    /**
+     * Count of sources to generate for each mode.
+     */
+    private static final int ITERATIONS = 100;
+
+    /**
+     * Count of edits of each source.
+     */
+    private static final int EDITS = 10;
+
+    /**
+     * Property name of test inputs directory.
+     */
+    private static final String PROPERTY_TEST_INPUTS_DIRECTORY =
+            "testinputs.dir";
+
+    /**
+     * Name of file to check.
+     */
+    private static final String FILE_NAME = "Generated.java";
+
+    /**
+     * Count of kinds of random edits.
+     */
+    private static final int EDIT_KINDS = 3;
+
+    /**
+     * One in this number of random edits undoes the latest edit.
+     */
+    private static final int UNDO_ODDS = 3;
+
+    /**
+     * Line of the method in the source of
+     * {@link #testRecheckEditInSearchingRange()}.
+     */
+    private static final int METHOD_LINE = 3;
+
+    /**
+     * Properties of each mode as name-value pairs.
+     */
+    private static final String[][] MODES = {
+        {},
+        {"checkEffectiveVisibility", "true",
+            "requireLatterWhiteSpace", "false", },
+    };
+
+    /**
+     * Edit of the model of source that can be undone.
+     */
+    private interface Edit
+    {
+        /**
+         * Undo the edit.
+         */
+        void undo();
+    }
+
+    /**
+     * Create incremental checker.
+     *
+     * @param aMode Properties of mode.
+     * @return Incremental checker.
+     * @throws Exception If the check cannot be configured.
+     */
+    private static CommentedPackageVisibilityIncrementalChecker create(
+            String[] aMode) throws Exception
+    {
+        final CommentedPackageVisibilityCheck check =
+                new CommentedPackageVisibilityCheck();
+        final DefaultConfiguration configuration =
+                new DefaultConfiguration(check.getClass().getName());
+        for (int i = 0; i < aMode.length; i += 2) {
+            configuration.addAttribute(aMode[i], aMode[i + 1]);
+        }
+        check.configure(configuration);
+        check.init();
+
+        return new CommentedPackageVisibilityIncrementalChecker(check);
+    }
+
+    /**
+     * Collect lists that contain nodes and nodes in the lists.
+     *
+     * @param aNodes Nodes.
+     * @param aLists Lists to add the list of each node to.
+     * @param aCollectedNodes Nodes to add nodes to.
+     */
+    private static void collect(List<JavaSourceGenerator.Node> aNodes,
+            List<List<JavaSourceGenerator.Node>> aLists,
+            List<JavaSourceGenerator.Node> aCollectedNodes)
+    {
+        for (JavaSourceGenerator.Node node : aNodes) {
+            aLists.add(aNodes);
+            aCollectedNodes.add(node);
+            collect(node.getChildren(), aLists, aCollectedNodes);
+        }
+    }
+
+    /**
+     * Edit the model of source randomly.
+     *
+     * @param aRandom Random numbers.
+     * @param aTypes Top level types.
+     * @return Edit to undo.
+     */
+    private static Edit edit(Random aRandom,
+            final List<JavaSourceGenerator.Node> aTypes)
+    {
+        final List<List<JavaSourceGenerator.Node>> lists =
+                new ArrayList<List<JavaSourceGenerator.Node>>();
+        final List<JavaSourceGenerator.Node> nodes =
+                new ArrayList<JavaSourceGenerator.Node>();
+        collect(aTypes, lists, nodes);
+
+        final int index = aRandom.nextInt(nodes.size());
+        final JavaSourceGenerator.Node node = nodes.get(index);
+        final List<JavaSourceGenerator.Node> list = lists.get(index);
+
+        switch (aRandom.nextInt(EDIT_KINDS)) {
+        case 0:
+            final String[] comments = node.removeComments();
+            return new Edit() {
+                public void undo()
+                {
+                    node.restoreComments(comments);
+                }
+            };
+        case 1:
+            final String modifiers = node.removeModifiers();
+            return new Edit() {
+                public void undo()
+                {
+                    node.restoreModifiers(modifiers);
+                }
+            };
+        default:
+            // Keep at least one top level type.
+            if (list == aTypes && list.size() == 1) {
+                return edit(aRandom, aTypes);
+            }
+            final int position = list.indexOf(node);
+            list.remove(position);
+            return new Edit() {
+                public void undo()
+                {
+                    list.add(position, node);
+                }
+            };
+        }
+    }
+
+    /**
+     * Render source with the line separator.
+     *
+     * @param aTypes Top level types.
+     * @param aLineSeparator Line separator.
+     * @return Source.
+     */
+    private static String render(List<JavaSourceGenerator.Node> aTypes,
+            String aLineSeparator)
+    {
+        return JavaSourceGenerator.render(aTypes).
+            replace("\n", aLineSeparator);
+    }
+
+    /**
+     * Check the edited source incrementally and compare with the full check.
+     *
+     * @param aChecker Incremental checker.
+     * @param aPrevious Result of the previous source.
+     * @param aPreviousSource Previous source.
+     * @param aSource Edited source.
+     * @param aDescription Description of the edit for failure.
+     * @return Result of the edited source.
+     * @throws Exception If Exception occurs.
+     */
+    private static IncrementalCheckResult recheck(
+            CommentedPackageVisibilityIncrementalChecker aChecker,
+            IncrementalCheckResult aPrevious, String aPreviousSource,
+            String aSource, String aDescription) throws Exception
+    {
+        // The edit is the range between the common prefix and suffix.
+        final int maxLength =
+                Math.min(aPreviousSource.length(), aSource.length());
+        int start = 0;
+        while (start < maxLength
+                && aPreviousSource.charAt(start) == aSource.charAt(start))
+        {
+            start++;
+        }
+        int suffix = 0;
+        while (suffix < maxLength - start
+                && aPreviousSource.charAt(aPreviousSource.length() - suffix - 1)
+                    == aSource.charAt(aSource.length() - suffix - 1))
+        {
+            suffix++;
+        }
+
+        final IncrementalCheckResult result = aChecker.recheck(aPrevious,
+                aSource, start, aPreviousSource.length() - suffix,
+                aSource.length() - suffix - start);
+
+        Assert.assertEquals(String.format("%s%n%s%n->%n%s", aDescription,
+                    aPreviousSource, aSource),
+                CheckRunner.toStrings(
+                        aChecker.check(FILE_NAME, aSource).getViolations()),
+                CheckRunner.toStrings(result.getViolations()));
+
+        return result;
+    }
+
+    /**
+     * Test that the full check is the same as {@link TreeWalker} does.
+     *
+     * @throws Exception If Exception occurs.
+     */
+    @Test
+    public void testCheckMatchesTreeWalker() throws Exception
+    {
+        final CommentedPackageVisibilityIncrementalChecker checker =
+                create(MODES[0]);
+        final CommentedPackageVisibilityCheck check =
+                new CommentedPackageVisibilityCheck();
+        check.configure(new DefaultConfiguration(check.getClass().getName()));
+        check.init();
+
+        for (int seed = 0; seed < ITERATIONS; seed++) {
+            final String source = JavaSourceGenerator.render(
+                    new JavaSourceGenerator(new Random(seed)).generate());
+
+            Assert.assertEquals(source,
+                    CheckRunner.toStrings(CheckRunner.run(check, source)),
+                    CheckRunner.toStrings(
+                            checker.check(FILE_NAME, source).getViolations()));
+        }
+    }
+
+    /**
+     * Test that violations after random edits are the same as
+     * the full check.
+     *
+     * @throws Exception If Exception occurs.
+     */
+    @Test
+    public void testRecheckMatchesCheck() throws Exception
+    {
+        for (String[] mode : MODES) {
+            final CommentedPackageVisibilityIncrementalChecker checker =
+                    create(mode);
+
+            for (int seed = 0; seed < ITERATIONS; seed++) {
+                final Random random = new Random(seed);
+                final List<JavaSourceGenerator.Node> types =
+                        new JavaSourceGenerator(random).generate();
+                final String lineSeparator =
+                        random.nextBoolean() ? "\n" : "\r\n";
+                final String description = String.format(
+                        "Mode %d, seed %d", mode.length, seed);
+
+                String source = render(types, lineSeparator);
+                IncrementalCheckResult result =
+                        checker.check(FILE_NAME, source);
+
+                // Edits are undone in reverse order, so that insertions
+                // are checked too.
+                final LinkedList<Edit> edits = new LinkedList<Edit>();
+                for (int i = 0; i < EDITS; i++) {
+                    if (!edits.isEmpty() && random.nextInt(UNDO_ODDS) == 0) {
+                        edits.removeFirst().undo();
+                    }
+                    else {
+                        edits.addFirst(edit(random, types));
+                    }
+
+                    final String editedSource = render(types, lineSeparator);
+                    result = recheck(checker, result, source, editedSource,
+                            description);
+                    source = editedSource;
+                }
+            }
+        }
+    }
+
+    /**
+     * Test that an edit on the line before the definition is checked
+     * if it is in the searching range.
+     *
+     * @throws Exception If Exception occurs.
+     */
+    @Test
+    public void testRecheckEditInSearchingRange() throws Exception
+    {
+        final CommentedPackageVisibilityIncrementalChecker checker =
+                create(MODES[0]);
+        final String source =
+                "public class A {\n    /* package */\n    void m() {}\n}";
+        final String editedSource =
+                "public class A {\n    /* other   */\n    void m() {}\n}";
+
+        final IncrementalCheckResult result = recheck(checker,
+                checker.check(FILE_NAME, source), source, editedSource,
+                "Edit of comment");
+
+        Assert.assertEquals(1, result.getViolations().size());
+        Assert.assertEquals(
+                METHOD_LINE, result.getViolations().first().getLineNo());
+    }
+
+    /**
+     * Test that an edit that does not match the text is rejected.
+     *
+     * @throws Exception If Exception occurs.
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public void testRecheckWithInvalidEdit() throws Exception
+    {
+        final CommentedPackageVisibilityIncrementalChecker checker =
+                create(MODES[0]);
+        final IncrementalCheckResult result =
+                checker.check(FILE_NAME, "class A {}");
+
+        // Only one character is inserted actually.
+        final int offset = "class A".length();
+        checker.recheck(result, "class AB {}", offset, offset, 2);
+    }
+
+    /**
+     * Test that a check with profiles is rejected.
+     *
+     * @throws Exception If Exception occurs.
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public void testCheckWithProfiles() throws Exception
+    {
+        final File profilesFile = new File(
+                System.getProperty(PROPERTY_TEST_INPUTS_DIRECTORY),
+                "profiles/profiles.properties");
+        create(new String[] {"profilesFile", profilesFile.getPath()});
+    }
+}
@@ -0,0 +1,305 @@
+/* Commented package visibility check (Checkstyle plugin)
+    Copyright (C) 2012  Keita Kita
+
+    This library is free software; you can redistribute it and/or
+    modify it under the terms of the GNU Lesser General Public
+    License as published by the Free Software Foundation; either
+    version 2.1 of the License, or (at your option) any later version.
+
+    This library is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+    Lesser General Public License for more details.
+
+    You should have received a copy of the GNU Lesser General Public
+    License along with this library; if not, write to the Free Software
+    Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+package com.github.mikanbako.checkstyle.commentedpackagevisibilitycheck;
+
+import java.io.File;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.SortedSet;
+import java.util.TreeSet;
+
+import junit.framework.Assert;
+
+import org.junit.Test;
+
+import com.puppycrawl.tools.checkstyle.DefaultConfiguration;
+import com.puppycrawl.tools.checkstyle.api.Check;
+import com.puppycrawl.tools.checkstyle.api.LocalizedMessage;
+
+/**
+ * <p>Differential test between {@link CommentedPackageVisibilityCheck} and
+ * {@link ReferenceCommentedPackageVisibilityCheck}.</p>
+ *
+ * <p>Random sources generated by {@link JavaSourceGenerator} are checked
+ * in each mode, and violations of both checks must be the same. If they
+ * are not the same, the source is shrunk before reporting.</p>
+ *
+ * @author Keita Kita
+ */
+public class DifferentialTest
+{
+    /**
+     * Count of sources to generate for each mode.
+     */
+    private static final int ITERATIONS = 300;
+
+    /**
+     * Properties of each mode as name-value pairs.
+     */
+    private static final String[][] MODES = {
+        {},
+        {"requireLatterWhiteSpace", "false"},
+        {"format", "/\\* package(-private)? \\*/"},
+        {"classFormat", "/\\* package \\*/",
+            "fieldFormat", "/\\* pkg \\*/",
+            "methodFormat", "/\\* pkg \\*/",
+            "ctorFormat", "// package\\n", },
+        {"checkEffectiveVisibility", "true"},
+        {"checkEffectiveVisibility", "true",
+            "requireLatterWhiteSpace", "false",
+            "methodFormat", "/\\* pkg \\*/", },
+    };
+
+    /**
+     * Profiles in profiles/profiles.properties of test inputs. Each profile
+     * is its name followed by its properties as name-value pairs.
+     */
+    private static final String[][] PROFILES = {
+        {"lenient", "requireLatterWhiteSpace", "false"},
+        {"migrated", "format", "/\\* package-private \\*/",
+            "requireLatterWhiteSpace", "false", },
+    };
+
+    /**
+     * Create configured check.
+     *
+     * @param aCheck Check to configure.
+     * @param aMode Properties of mode.
+     * @return Configured check.
+     * @throws Exception If the check cannot be configured.
+     */
+    private static Check configure(Check aCheck, String[] aMode)
+        throws Exception
+    {
+        final DefaultConfiguration configuration =
+                new DefaultConfiguration(aCheck.getClass().getName());
+        for (int i = 0; i < aMode.length; i += 2) {
+            configuration.addAttribute(aMode[i], aMode[i + 1]);
+        }
+
+        aCheck.configure(configuration);
+        aCheck.init();
+
+        return aCheck;
+    }
+
+    /**
+     * Get description of mode.
+     *
+     * @param aMode Properties of mode.
+     * @return Description of mode.
+     */
+    private static String describe(String[] aMode)
+    {
+        final StringBuilder builder = new StringBuilder("{");
+        for (int i = 0; i < aMode.length; i += 2) {
+            builder.append(aMode[i]).append('=').append(aMode[i + 1]).
+                append((i + 2 < aMode.length) ? ", " : "");
+        }
+
+        return builder.append('}').toString();
+    }
+
+    /**
+     * Checker of differences between the reference and the optimized check.
+     */
+    private interface Oracle
+    {
+        /**
+         * Get difference of violations.
+         *
+         * @param aSource Source to check.
+         * @return Description of difference, or null if violations are
+         *  the same.
+         * @throws Exception If Exception occurs.
+         */
+        String getDifference(String aSource) throws Exception;
+    }
+
+    /**
+     * Create oracle of the mode.
+     *
+     * @param aMode Properties of mode.
+     * @return Oracle of the mode.
+     * @throws Exception If checks cannot be configured.
+     */
+    private static Oracle createOracle(String[] aMode) throws Exception
+    {
+        final Check referenceCheck = configure(
+                new ReferenceCommentedPackageVisibilityCheck(), aMode);
+        final Check optimizedCheck =
+                configure(new CommentedPackageVisibilityCheck(), aMode);
+
+        return new Oracle() {
+            public String getDifference(String aSource) throws Exception
+            {
+                final SortedSet<String> expected = CheckRunner.toStrings(
+                        CheckRunner.run(referenceCheck, aSource));
+                final SortedSet<String> actual = CheckRunner.toStrings(
+                        CheckRunner.run(optimizedCheck, aSource));
+
+                return expected.equals(actual)
+                    ? null
+                    : String.format("expected %s%nbut was %s",
+                            expected, actual);
+            }
+        };
+    }
+
+    /**
+     * Shrink nodes while the difference remains.
+     *
+     * @param aOracle Oracle.
+     * @param aTypes Top level types.
+     * @param aNodes Nodes to shrink.
+     * @return True if any node is shrunk.
+     * @throws Exception If Exception occurs.
+     */
+    private static boolean shrink(Oracle aOracle,
+            List<JavaSourceGenerator.Node> aTypes,
+            List<JavaSourceGenerator.Node> aNodes) throws Exception
+    {
+        boolean shrunk = false;
+
+        for (int i = aNodes.size() - 1; i >= 0; i--) {
+            final JavaSourceGenerator.Node node = aNodes.get(i);
+
+            // Keep at least one top level type.
+            if (aNodes != aTypes || aNodes.size() > 1) {
+                aNodes.remove(i);
+                if (aOracle.getDifference(
+                        JavaSourceGenerator.render(aTypes)) != null)
+                {
+                    shrunk = true;
+                    continue;
+                }
+                aNodes.add(i, node);
+            }
+
+            if (node.hasComments()) {
+                final String[] comments = node.removeComments();
+                if (aOracle.getDifference(
+                        JavaSourceGenerator.render(aTypes)) != null)
+                {
+                    shrunk = true;
+                }
+                else {
+                    node.restoreComments(comments);
+                }
+            }
+
+            shrunk |= shrink(aOracle, aTypes, node.getChildren());
+        }
+
+        return shrunk;
+    }
+
+    /**
+     * Test that violations of the optimized check are the same as
+     * the reference check for random sources.
+     *
+     * @throws Exception If Exception occurs.
+     */
+    @Test
+    public void testOptimizedCheckMatchesReference() throws Exception
+    {
+        for (String[] mode : MODES) {
+            final Oracle oracle = createOracle(mode);
+
+            for (int seed = 0; seed < ITERATIONS; seed++) {
+                final List<JavaSourceGenerator.Node> types =
+                        new JavaSourceGenerator(new Random(seed)).generate();
+                if (oracle.getDifference(
+                        JavaSourceGenerator.render(types)) == null)
+                {
+                    continue;
+                }
+
+                // Shrink until no node can be removed.
+                boolean shrunk = true;
+                while (shrunk) {
+                    shrunk = shrink(oracle, types, types);
+                }
+
+                final String source = JavaSourceGenerator.render(types);
+                Assert.fail(String.format(
+                        "Mode %s, seed %d :%n%s%n%s", describe(mode), seed,
+                        oracle.getDifference(source), source));
+            }
+        }
+    }
+
+    /**
+     * Test that violations of profiles evaluated in one pass are the same
+     * as checks configured with each profile.
+     *
+     * @throws Exception If Exception occurs.
+     */
+    @Test
+    public void testProfilesMatchSeparateChecks() throws Exception
+    {
+        final String profilesFile = new File(
+                System.getProperty("testinputs.dir"),
+                "profiles/profiles.properties").getPath();
+        final CommentedPackageVisibilityCheck profiledCheck =
+                new CommentedPackageVisibilityCheck();
+        configure(profiledCheck, new String[] {"profilesFile", profilesFile});
+        final Check defaultCheck =
+                configure(new CommentedPackageVisibilityCheck(), MODES[0]);
+        final Check[] profileChecks = new Check[PROFILES.length];
+        final int[] profileCounts = new int[PROFILES.length];
+        for (int i = 0; i < PROFILES.length; i++) {
+            final String[] mode = new String[PROFILES[i].length - 1];
+            System.arraycopy(PROFILES[i], 1, mode, 0, mode.length);
+            profileChecks[i] =
+                    configure(new CommentedPackageVisibilityCheck(), mode);
+        }
+
+        for (int seed = 0; seed < ITERATIONS; seed++) {
+            final String source = JavaSourceGenerator.render(
+                    new JavaSourceGenerator(new Random(seed)).generate());
+
+            final SortedSet<String> expected = new TreeSet<String>(
+                    CheckRunner.toStrings(
+                            CheckRunner.run(defaultCheck, source)));
+            for (int i = 0; i < PROFILES.length; i++) {
+                for (LocalizedMessage message
+                        : CheckRunner.run(profileChecks[i], source))
+                {
+                    expected.add(String.format("%d: profile.%s: [%s] %s",
+                            message.getLineNo(), message.getKey(),
+                            PROFILES[i][0], message.getMessage()));
+                    profileCounts[i]++;
+                }
+            }
+
+            Assert.assertEquals(String.format("Seed %d :%n%s", seed, source),
+                    expected, CheckRunner.toStrings(
+                            CheckRunner.run(profiledCheck, source)));
+        }
+
+        final Map<String, Integer> counts =
+                profiledCheck.getProfileViolationCounts();
+        Assert.assertEquals(PROFILES.length, counts.size());
+        for (int i = 0; i < PROFILES.length; i++) {
+            Assert.assertEquals(Integer.valueOf(profileCounts[i]),
+                    counts.get(PROFILES[i][0]));
+        }
+    }
+}
@@ -0,0 +1,179 @@
+/* Commented package visibility check (Checkstyle plugin)
+    Copyright (C) 2012  Keita Kita
+
+    This library is free software; you can redistribute it and/or
+    modify it under the terms of the GNU Lesser General Public
+    License as published by the Free Software Foundation; either
+    version 2.1 of the License, or (at your option) any later version.
+
+    This library is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+    Lesser General Public License for more details.
+
+    You should have received a copy of the GNU Lesser General Public
+    License along with this library; if not, write to the Free Software
+    Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+package com.github.mikanbako.checkstyle.commentedpackagevisibilitycheck;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+
+import junit.framework.Assert;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.puppycrawl.tools.checkstyle.api.LocalizedMessage;
+
+/**
+ * Test class for {@link IncrementalAuditor}.
+ *
+ * @author Keita Kita
+ */
+public class IncrementalAuditorTest
+{
+    /**
+     * Folder to write test sources.
+     */
+    private final TemporaryFolder mFolder = new TemporaryFolder();
+
+    /**
+     * Auditor to test.
+     */
+    private IncrementalAuditor mAuditor;
+
+    /**
+     * Create the folder and the auditor.
+     *
+     * @throws Exception If Exception occurs.
+     */
+    @Before
+    public void setUp() throws Exception
+    {
+        mFolder.create();
+        mAuditor = new IncrementalAuditor(CheckerFactory.create(
+                CheckerFactory.createDefaultConfiguration()));
+        LocalizedMessage.setLocale(new Locale(""));
+    }
+
+    /**
+     * Delete the folder.
+     */
+    @After
+    public void tearDown()
+    {
+        mFolder.delete();
+    }
+
+    /**
+     * Write source to the file.
+     *
+     * @param aFile File to write.
+     * @param aSource Source to write.
+     * @throws IOException If I/O error occurs.
+     */
+    private static void write(File aFile, String aSource) throws IOException
+    {
+        final Writer writer = new OutputStreamWriter(
+                new FileOutputStream(aFile), "UTF-8");
+        try {
+            writer.write(aSource);
+        }
+        finally {
+            writer.close();
+        }
+    }
+
+    /**
+     * Convert violations to line numbers and messages.
+     *
+     * @param aMessages Violations.
+     * @return Line numbers and messages joined by ": ".
+     */
+    private static String toString(Iterable<LocalizedMessage> aMessages)
+    {
+        final StringBuilder builder = new StringBuilder();
+        for (LocalizedMessage message : aMessages) {
+            builder.append(message.getLineNo()).append(": ").
+                append(message.getMessage()).append('\n');
+        }
+
+        return builder.toString();
+    }
+
+    /**
+     * Test that only differences of violations are reported.
+     *
+     * @throws Exception If Exception occurs.
+     */
+    @Test
+    public void testAuditReportsOnlyDifferences() throws Exception
+    {
+        final File file = mFolder.newFile("Target.java");
+        write(file, "/* package */ class Target\n{\n    int field;\n}\n");
+
+        List<ViolationDelta> deltas =
+                mAuditor.audit(Collections.singletonList(file));
+        Assert.assertEquals(1, deltas.size());
+        Assert.assertEquals(file.getAbsolutePath(),
+                deltas.get(0).getFileName());
+        Assert.assertEquals(
+                "3: 'field' should be commented for package visibility.\n",
+                toString(deltas.get(0).getAdded()));
+        Assert.assertTrue(deltas.get(0).getRemoved().isEmpty());
+
+        // Audit again without any change.
+        deltas = mAuditor.audit(Collections.singletonList(file));
+        Assert.assertTrue(deltas.isEmpty());
+
+        write(file, "/* package */ class Target\n{\n"
+                + "    /* package */ int field;\n    void method() {}\n}\n");
+        deltas = mAuditor.audit(Collections.singletonList(file));
+        Assert.assertEquals(1, deltas.size());
+        Assert.assertEquals(
+                "4: 'method' should be commented for package visibility.\n",
+                toString(deltas.get(0).getAdded()));
+        Assert.assertEquals(
+                "3: 'field' should be commented for package visibility.\n",
+                toString(deltas.get(0).getRemoved()));
+    }
+
+    /**
+     * Test that violations of deleted files and directories are removed.
+     *
+     * @throws Exception If Exception occurs.
+     */
+    @Test
+    public void testRemove() throws Exception
+    {
+        final File directory = mFolder.newFolder("sub");
+        final File file = new File(directory, "Target.java");
+        write(file, "class Target\n{\n}\n");
+
+        mAuditor.audit(Collections.singletonList(file));
+        Assert.assertEquals(Collections.singleton(file.getAbsolutePath()),
+                mAuditor.getFileNames());
+
+        List<ViolationDelta> deltas =
+                mAuditor.remove(Collections.singletonList(directory));
+        Assert.assertEquals(1, deltas.size());
+        Assert.assertEquals(
+                "1: 'Target' should be commented for package visibility.\n",
+                toString(deltas.get(0).getRemoved()));
+        Assert.assertTrue(deltas.get(0).getAdded().isEmpty());
+        Assert.assertTrue(mAuditor.getFileNames().isEmpty());
+
+        deltas = mAuditor.remove(Collections.singletonList(file));
+        Assert.assertTrue(deltas.isEmpty());
+    }
+}
@@ -0,0 +1,612 @@
+/* Commented package visibility check (Checkstyle plugin)
+    Copyright (C) 2012  Keita Kita
+
+    This library is free software; you can redistribute it and/or
+    modify it under the terms of the GNU Lesser General Public
+    License as published by the Free Software Foundation; either
+    version 2.1 of the License, or (at your option) any later version.
+
+    This library is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+    Lesser General Public License for more details.
+
+    You should have received a copy of the GNU Lesser General Public
+    License along with this library; if not, write to the Free Software
+    Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+package com.github.mikanbako.checkstyle.commentedpackagevisibilitycheck;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * <p>Generator of random but valid Java sources.</p>
+ *
+ * <p>A source is generated as a tree of {@link Node}, so that the tree can
+ * be shrunk by removing nodes.</p>
+ *
+ * @author Keita Kita
+ */
+public final class JavaSourceGenerator
+{
+    /**
+     * Kind of node.
+     */
+    public enum Kind
+    {
+        /** Class. */
+        CLASS,
+        /** Interface. */
+        INTERFACE,
+        /** Enum. */
+        ENUM,
+        /** Constant of enum. */
+        ENUM_CONSTANT,
+        /** Field. */
+        FIELD,
+        /** Method. */
+        METHOD,
+        /** Constructor. */
+        CTOR,
+        /** Local variable. */
+        LOCAL_VARIABLE,
+        /** Anonymous class. */
+        ANONYMOUS_CLASS,
+        /** Local class. */
+        LOCAL_CLASS,
+    }
+
+    /**
+     * Node of generated source.
+     */
+    public static final class Node
+    {
+        /**
+         * Kind of node.
+         */
+        private final Kind mKind;
+
+        /**
+         * Name of node.
+         */
+        private final String mName;
+
+        /**
+         * Comment before modifiers.
+         */
+        private String mLeadingComment = "";
+
+        /**
+         * Modifiers.
+         */
+        private String mModifiers = "";
+
+        /**
+         * Comment after modifiers.
+         */
+        private String mTrailingComment = "";
+
+        /**
+         * Separator between tokens.
+         */
+        private final String mSeparator;
+
+        /**
+         * Child nodes.
+         */
+        private final List<Node> mChildren = new ArrayList<Node>();
+
+        /**
+         * Constructor.
+         *
+         * @param aKind Kind of node.
+         * @param aName Name of node.
+         * @param aSeparator Separator between tokens.
+         */
+        Node(Kind aKind, String aName, String aSeparator)
+        {
+            mKind = aKind;
+            mName = aName;
+            mSeparator = aSeparator;
+        }
+
+        /**
+         * Get child nodes.
+         *
+         * @return Modifiable list of child nodes.
+         */
+        public List<Node> getChildren()
+        {
+            return mChildren;
+        }
+
+        /**
+         * Whether the node has comments.
+         *
+         * @return True if the node has comments.
+         */
+        public boolean hasComments()
+        {
+            return mLeadingComment.length() > 0
+                    || mTrailingComment.length() > 0;
+        }
+
+        /**
+         * Remove comments.
+         *
+         * @return Removed comments to restore by
+         *  {@link #restoreComments(String[])}.
+         */
+        public String[] removeComments()
+        {
+            final String[] comments = {mLeadingComment, mTrailingComment};
+            mLeadingComment = "";
+            mTrailingComment = "";
+
+            return comments;
+        }
+
+        /**
+         * Restore comments.
+         *
+         * @param aComments Comments removed by {@link #removeComments()}.
+         */
+        public void restoreComments(String[] aComments)
+        {
+            mLeadingComment = aComments[0];
+            mTrailingComment = aComments[1];
+        }
+
+        /**
+         * Remove modifiers.
+         *
+         * @return Removed modifiers to restore by
+         *  {@link #restoreModifiers(String)}.
+         */
+        public String removeModifiers()
+        {
+            final String modifiers = mModifiers;
+            mModifiers = "";
+
+            return modifiers;
+        }
+
+        /**
+         * Restore modifiers.
+         *
+         * @param aModifiers Modifiers removed by {@link #removeModifiers()}.
+         */
+        public void restoreModifiers(String aModifiers)
+        {
+            mModifiers = aModifiers;
+        }
+    }
+
+    /**
+     * Comments that may be written before or after modifiers.
+     */
+    private static final String[] COMMENTS = {
+        "/* package */ ",
+        "/* package */",
+        "/* package */\n",
+        "/* pkg */ ",
+        "/* package-private */ ",
+        "// package\n",
+        "/** Javadoc. */\n",
+        "/* other */ ",
+    };
+
+    /**
+     * Separators between tokens.
+     */
+    private static final String[] SEPARATORS = {" ", " ", " ", "\n", "\n  "};
+
+    /**
+     * Visibility modifiers.
+     */
+    private static final String[] VISIBILITIES = {
+        "", "", "public ", "protected ", "private ",
+    };
+
+    /**
+     * Kinds of types that may be generated.
+     */
+    private static final Kind[] TYPE_KINDS = {
+        Kind.CLASS, Kind.CLASS, Kind.INTERFACE, Kind.ENUM,
+    };
+
+    /**
+     * Max depth of nested types.
+     */
+    private static final int MAX_DEPTH = 3;
+
+    /**
+     * Max count of members of a type.
+     */
+    private static final int MAX_MEMBERS = 5;
+
+    /**
+     * Percentage to add a comment.
+     */
+    private static final int COMMENT_PERCENTAGE = 60;
+
+    /**
+     * Percentage that always occurs.
+     */
+    private static final int ALL_PERCENTAGE = 100;
+
+    /**
+     * Percentage to make a top level type or interface member public.
+     */
+    private static final int PUBLIC_PERCENTAGE = 50;
+
+    /**
+     * Percentage to make an enum constructor private.
+     */
+    private static final int PRIVATE_CTOR_PERCENTAGE = 50;
+
+    /**
+     * Percentage to add a body to an enum constant.
+     */
+    private static final int CONSTANT_BODY_PERCENTAGE = 40;
+
+    /**
+     * Percentage to make a field final.
+     */
+    private static final int FINAL_PERCENTAGE = 20;
+
+    /**
+     * Percentage to add a local variable to a method.
+     */
+    private static final int LOCAL_VARIABLE_PERCENTAGE = 30;
+
+    /**
+     * Percentage to add an anonymous class to a method.
+     */
+    private static final int ANONYMOUS_CLASS_PERCENTAGE = 30;
+
+    /**
+     * Percentage to add a local class to a method.
+     */
+    private static final int LOCAL_CLASS_PERCENTAGE = 20;
+
+    /**
+     * Count of choices of a member. Nested types take the rest of choices
+     * after a field, a method and a constructor.
+     */
+    private static final int MEMBER_CHOICES = 5;
+
+    /**
+     * Random numbers.
+     */
+    private final Random mRandom;
+
+    /**
+     * Counter to make unique names.
+     */
+    private int mNameCounter;
+
+    /**
+     * Constructor.
+     *
+     * @param aRandom Random numbers.
+     */
+    public JavaSourceGenerator(Random aRandom)
+    {
+        mRandom = aRandom;
+    }
+
+    /**
+     * Choose an element randomly.
+     *
+     * @param aElements Elements.
+     * @return Chosen element.
+     */
+    private String choose(String[] aElements)
+    {
+        return aElements[mRandom.nextInt(aElements.length)];
+    }
+
+    /**
+     * Whether an event occurs.
+     *
+     * @param aPercentage Percentage of the event.
+     * @return True if the event occurs.
+     */
+    private boolean occurs(int aPercentage)
+    {
+        return mRandom.nextInt(ALL_PERCENTAGE) < aPercentage;
+    }
+
+    /**
+     * Create node with random comments.
+     *
+     * @param aKind Kind of node.
+     * @param aPrefix Prefix of name.
+     * @param aModifiers Modifiers.
+     * @return Created node.
+     */
+    private Node createNode(Kind aKind, String aPrefix, String aModifiers)
+    {
+        final Node node = new Node(
+                aKind, aPrefix + mNameCounter++, choose(SEPARATORS));
+        node.mModifiers = aModifiers;
+        if (occurs(COMMENT_PERCENTAGE)) {
+            node.mLeadingComment = choose(COMMENTS);
+        }
+        else if (aModifiers.length() > 0 && occurs(COMMENT_PERCENTAGE)) {
+            node.mTrailingComment = choose(COMMENTS);
+        }
+
+        return node;
+    }
+
+    /**
+     * Generate top level types.
+     *
+     * @return Top level types.
+     */
+    public List<Node> generate()
+    {
+        final List<Node> types = new ArrayList<Node>();
+        final int count = 1 + mRandom.nextInt(2);
+        for (int i = 0; i < count; i++) {
+            // Only one top level type can be public.
+            final boolean isPublic = i == 0 && occurs(PUBLIC_PERCENTAGE);
+            types.add(generateType(isPublic ? "public " : "", true, 0));
+        }
+
+        return types;
+    }
+
+    /**
+     * Generate type.
+     *
+     * @param aModifiers Modifiers.
+     * @param aStaticAllowed Whether interface and enum are allowed.
+     * @param aDepth Depth of nesting.
+     * @return Generated type.
+     */
+    private Node generateType(String aModifiers, boolean aStaticAllowed,
+            int aDepth)
+    {
+        final Kind kind;
+        if (!aStaticAllowed) {
+            kind = Kind.CLASS;
+        }
+        else {
+            kind = TYPE_KINDS[mRandom.nextInt(TYPE_KINDS.length)];
+        }
+
+        final Node type = createNode(kind, "T", aModifiers);
+        if (kind == Kind.ENUM) {
+            final int constantCount = mRandom.nextInt(3);
+            for (int i = 0; i < constantCount; i++) {
+                final Node constant =
+                        new Node(Kind.ENUM_CONSTANT, "C" + mNameCounter++, " ");
+                if (aDepth < MAX_DEPTH && occurs(CONSTANT_BODY_PERCENTAGE)) {
+                    generateMembers(
+                            constant, Kind.ANONYMOUS_CLASS, false, aDepth + 1);
+                }
+                type.mChildren.add(constant);
+            }
+        }
+        generateMembers(type, kind,
+                aStaticAllowed && kind != Kind.CLASS || aDepth == 0, aDepth);
+
+        return type;
+    }
+
+    /**
+     * Generate members of the type.
+     *
+     * @param aType Type to add members.
+     * @param aKind Kind of the type. Constructors are not generated for
+     *  anonymous class.
+     * @param aStaticAllowed Whether nested interface and enum are allowed.
+     * @param aDepth Depth of nesting.
+     */
+    private void generateMembers(Node aType, Kind aKind,
+            boolean aStaticAllowed, int aDepth)
+    {
+        final boolean inInterface = aKind == Kind.INTERFACE;
+        final int count = mRandom.nextInt(MAX_MEMBERS + 1);
+
+        for (int i = 0; i < count; i++) {
+            final String visibility = inInterface
+                    ? (occurs(PUBLIC_PERCENTAGE) ? "public " : "")
+                    : choose(VISIBILITIES);
+
+            switch (mRandom.nextInt(MEMBER_CHOICES)) {
+            case 0:
+                final String finalModifier =
+                        occurs(FINAL_PERCENTAGE) ? "final " : "";
+                aType.mChildren.add(createNode(
+                        Kind.FIELD, "f", visibility + finalModifier));
+                break;
+            case 1:
+                aType.mChildren.add(
+                        generateMethod(visibility, inInterface, aDepth));
+                break;
+            case 2:
+                if (aKind == Kind.CLASS) {
+                    aType.mChildren.add(
+                            createNode(Kind.CTOR, "", visibility));
+                }
+                else if (aKind == Kind.ENUM) {
+                    aType.mChildren.add(createNode(Kind.CTOR, "",
+                            occurs(PRIVATE_CTOR_PERCENTAGE) ? "private " : ""));
+                }
+                break;
+            default:
+                if (aDepth < MAX_DEPTH) {
+                    // Types in interface are implicitly static.
+                    aType.mChildren.add(generateType(visibility,
+                            aStaticAllowed, aDepth + 1));
+                }
+                break;
+            }
+        }
+    }
+
+    /**
+     * Generate method.
+     *
+     * @param aVisibility Visibility modifier.
+     * @param aInInterface Whether the method is in interface.
+     * @param aDepth Depth of nesting.
+     * @return Generated method.
+     */
+    private Node generateMethod(String aVisibility, boolean aInInterface,
+            int aDepth)
+    {
+        final Node method = createNode(Kind.METHOD, "m", aVisibility);
+        if (aInInterface) {
+            return method;
+        }
+
+        if (occurs(LOCAL_VARIABLE_PERCENTAGE)) {
+            method.mChildren.add(new Node(
+                    Kind.LOCAL_VARIABLE, "v" + mNameCounter++, " "));
+        }
+        if (aDepth < MAX_DEPTH && occurs(ANONYMOUS_CLASS_PERCENTAGE)) {
+            final Node anonymousClass =
+                    new Node(Kind.ANONYMOUS_CLASS, "", " ");
+            generateMembers(anonymousClass, Kind.ANONYMOUS_CLASS, false,
+                    aDepth + 1);
+            method.mChildren.add(anonymousClass);
+        }
+        if (aDepth < MAX_DEPTH && occurs(LOCAL_CLASS_PERCENTAGE)) {
+            final Node localClass = createNode(Kind.LOCAL_CLASS, "L", "");
+            generateMembers(localClass, Kind.CLASS, false, aDepth + 1);
+            method.mChildren.add(localClass);
+        }
+
+        return method;
+    }
+
+    /**
+     * Render top level types as source.
+     *
+     * @param aTypes Top level types.
+     * @return Source.
+     */
+    public static String render(List<Node> aTypes)
+    {
+        final StringBuilder builder = new StringBuilder("package generated;\n");
+        for (Node type : aTypes) {
+            builder.append('\n');
+            render(builder, type, null);
+        }
+
+        return builder.toString();
+    }
+
+    /**
+     * Render node.
+     *
+     * @param aBuilder Builder to append source.
+     * @param aNode Node to render.
+     * @param aEnclosingType Enclosing type, or null if the node is top level.
+     */
+    private static void render(StringBuilder aBuilder, Node aNode,
+            Node aEnclosingType)
+    {
+        final String separator = aNode.mSeparator;
+        aBuilder.append(aNode.mLeadingComment).append(aNode.mModifiers).
+            append(aNode.mTrailingComment);
+
+        switch (aNode.mKind) {
+        case CLASS:
+        case LOCAL_CLASS:
+            aBuilder.append("class").append(separator).append(aNode.mName);
+            renderBody(aBuilder, aNode, aNode.mChildren);
+            break;
+        case INTERFACE:
+            aBuilder.append("interface").append(separator).append(aNode.mName);
+            renderBody(aBuilder, aNode, aNode.mChildren);
+            break;
+        case ENUM:
+            aBuilder.append("enum").append(separator).append(aNode.mName).
+                append("\n{\n");
+            final List<Node> members = new ArrayList<Node>();
+            String constantSeparator = "";
+            for (Node child : aNode.mChildren) {
+                if (child.mKind == Kind.ENUM_CONSTANT) {
+                    aBuilder.append(constantSeparator).append(child.mName);
+                    if (!child.mChildren.isEmpty()) {
+                        renderBody(aBuilder, aNode, child.mChildren);
+                    }
+                    constantSeparator = ",\n";
+                }
+                else {
+                    members.add(child);
+                }
+            }
+            aBuilder.append(";\n");
+            renderMembers(aBuilder, aNode, members);
+            aBuilder.append("}\n");
+            break;
+        case FIELD:
+            aBuilder.append("int").append(separator).append(aNode.mName).
+                append(" = 0;\n");
+            break;
+        case METHOD:
+            aBuilder.append("void").append(separator).append(aNode.mName).
+                append("()");
+            if (aEnclosingType.mKind == Kind.INTERFACE) {
+                aBuilder.append(";\n");
+            }
+            else {
+                renderBody(aBuilder, aEnclosingType, aNode.mChildren);
+            }
+            break;
+        case CTOR:
+            aBuilder.append(aEnclosingType.mName).append(separator).
+                append("()\n{\n}\n");
+            break;
+        case LOCAL_VARIABLE:
+            aBuilder.append("int ").append(aNode.mName).append(" = 0;\n");
+            break;
+        case ANONYMOUS_CLASS:
+            aBuilder.append("new Object()");
+            renderBody(aBuilder, aNode, aNode.mChildren);
+            aBuilder.append(";\n");
+            break;
+        default:
+            throw new IllegalStateException(aNode.mKind.toString());
+        }
+    }
+
+    /**
+     * Render body in braces.
+     *
+     * @param aBuilder Builder to append source.
+     * @param aEnclosingType Type that encloses members.
+     * @param aMembers Members in the body.
+     */
+    private static void renderBody(StringBuilder aBuilder,
+            Node aEnclosingType, List<Node> aMembers)
+    {
+        aBuilder.append("\n{\n");
+        renderMembers(aBuilder, aEnclosingType, aMembers);
+        aBuilder.append("}\n");
+    }
+
+    /**
+     * Render members.
+     *
+     * @param aBuilder Builder to append source.
+     * @param aEnclosingType Type that encloses members.
+     * @param aMembers Members.
+     */
+    private static void renderMembers(StringBuilder aBuilder,
+            Node aEnclosingType, List<Node> aMembers)
+    {
+        for (Node member : aMembers) {
+            render(aBuilder, member, aEnclosingType);
+        }
+    }
+}
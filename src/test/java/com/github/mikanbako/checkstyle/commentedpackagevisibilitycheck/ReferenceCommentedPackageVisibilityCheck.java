@@ -0,0 +1,305 @@
+/* Commented package visibility check (Checkstyle plugin)
+    Copyright (C) 2012  Keita Kita
+
+    This library is free software; you can redistribute it and/or
+    modify it under the terms of the GNU Lesser General Public
+    License as published by the Free Software Foundation; either
+    version 2.1 of the License, or (at your option) any later version.
+
+    This library is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+    Lesser General Public License for more details.
+
+    You should have received a copy of the GNU Lesser General Public
+    License along with this library; if not, write to the Free Software
+    Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+package com.github.mikanbako.checkstyle.commentedpackagevisibilitycheck;
+
+import java.util.regex.Pattern;
+
+import org.apache.commons.beanutils.ConversionException;
+
+import com.puppycrawl.tools.checkstyle.api.DetailAST;
+import com.puppycrawl.tools.checkstyle.api.Scope;
+import com.puppycrawl.tools.checkstyle.api.ScopeUtils;
+import com.puppycrawl.tools.checkstyle.api.TokenTypes;
+import com.puppycrawl.tools.checkstyle.checks.AbstractFormatCheck;
+
+/**
+ * <p>Straightforward implementation of
+ * {@link CommentedPackageVisibilityCheck} used as reference.</p>
+ *
+ * <p>Patterns are compiled and enclosing definitions are traversed for
+ * each definition without any cache.</p>
+ *
+ * @author Keita Kita
+ */
+public final class ReferenceCommentedPackageVisibilityCheck
+    extends AbstractFormatCheck
+{
+    /**
+     * Whether latter white space is required for package visibility comment.
+     */
+    private boolean mRequireLatterWhiteSpace = true;
+
+    /**
+     * Whether visibility is checked with scopes of enclosing definitions.
+     */
+    private boolean mCheckEffectiveVisibility;
+
+    /**
+     * Format for type definitions.
+     */
+    private String mClassFormat;
+
+    /**
+     * Format for field definitions.
+     */
+    private String mFieldFormat;
+
+    /**
+     * Format for method definitions.
+     */
+    private String mMethodFormat;
+
+    /**
+     * Format for constructor definitions.
+     */
+    private String mCtorFormat;
+
+    /**
+     * Constructor.
+     *
+     * @throws ConversionException {@inheritDoc}
+     */
+    public ReferenceCommentedPackageVisibilityCheck()
+        throws ConversionException
+    {
+        super("/\\* package \\*/");
+    }
+
+    @Override
+    public int[] getDefaultTokens()
+    {
+        return new int[] {
+            TokenTypes.CLASS_DEF,
+            TokenTypes.ENUM_DEF,
+            TokenTypes.INTERFACE_DEF,
+            TokenTypes.CTOR_DEF,
+            TokenTypes.VARIABLE_DEF,
+            TokenTypes.METHOD_DEF,
+        };
+    }
+
+    /**
+     * Set whether latter white space is required.
+     *
+     * @param aRequired True if latter white space is required.
+     */
+    public void setRequireLatterWhiteSpace(boolean aRequired)
+    {
+        mRequireLatterWhiteSpace = aRequired;
+    }
+
+    /**
+     * Set whether effective visibility is checked.
+     *
+     * @param aChecked True if effective visibility is checked.
+     */
+    public void setCheckEffectiveVisibility(boolean aChecked)
+    {
+        mCheckEffectiveVisibility = aChecked;
+    }
+
+    /**
+     * Set format for type definitions.
+     *
+     * @param aFormat Format.
+     */
+    public void setClassFormat(String aFormat)
+    {
+        mClassFormat = aFormat;
+    }
+
+    /**
+     * Set format for field definitions.
+     *
+     * @param aFormat Format.
+     */
+    public void setFieldFormat(String aFormat)
+    {
+        mFieldFormat = aFormat;
+    }
+
+    /**
+     * Set format for method definitions.
+     *
+     * @param aFormat Format.
+     */
+    public void setMethodFormat(String aFormat)
+    {
+        mMethodFormat = aFormat;
+    }
+
+    /**
+     * Set format for constructor definitions.
+     *
+     * @param aFormat Format.
+     */
+    public void setCtorFormat(String aFormat)
+    {
+        mCtorFormat = aFormat;
+    }
+
+    /**
+     * Get format of the definition.
+     *
+     * @param aDefinitionAST AST of definition.
+     * @return Format of the definition.
+     */
+    private String getFormatOf(DetailAST aDefinitionAST)
+    {
+        String format = null;
+        switch (aDefinitionAST.getType()) {
+        case TokenTypes.CLASS_DEF:
+        case TokenTypes.ENUM_DEF:
+        case TokenTypes.INTERFACE_DEF:
+            format = mClassFormat;
+            break;
+        case TokenTypes.VARIABLE_DEF:
+            format = mFieldFormat;
+            break;
+        case TokenTypes.METHOD_DEF:
+            format = mMethodFormat;
+            break;
+        case TokenTypes.CTOR_DEF:
+            format = mCtorFormat;
+            break;
+        default:
+            break;
+        }
+
+        return (format == null) ? getFormat() : format;
+    }
+
+    /**
+     * Whether any enclosing definition hides the definition from package.
+     *
+     * @param aDefinitionAST AST of definition.
+     * @return True if the definition is hidden from package.
+     */
+    private static boolean isHiddenFromPackage(DetailAST aDefinitionAST)
+    {
+        for (DetailAST ast = aDefinitionAST.getParent(); ast != null;
+                ast = ast.getParent())
+        {
+            switch (ast.getType()) {
+            case TokenTypes.LITERAL_NEW:
+            case TokenTypes.ENUM_CONSTANT_DEF:
+            case TokenTypes.SLIST:
+                return true;
+            case TokenTypes.CLASS_DEF:
+            case TokenTypes.INTERFACE_DEF:
+            case TokenTypes.ENUM_DEF:
+            case TokenTypes.ANNOTATION_DEF:
+                if (!ScopeUtils.inInterfaceOrAnnotationBlock(ast)
+                        && !ScopeUtils.getScopeFromMods(ast.findFirstToken(
+                                TokenTypes.MODIFIERS)).isIn(Scope.PACKAGE))
+                {
+                    return true;
+                }
+                break;
+            default:
+                break;
+            }
+        }
+
+        return false;
+    }
+
+    /**
+     * Get text from the end of the previous sibling to the identifier.
+     *
+     * @param aDefinitionAST AST of definition.
+     * @return Text to search.
+     */
+    private String getTargetText(DetailAST aDefinitionAST)
+    {
+        int startLine = 1;
+        int startColumn = 0;
+        DetailAST ast = aDefinitionAST.getPreviousSibling();
+        if (ast != null) {
+            while (ast.getLastChild() != null) {
+                ast = ast.getLastChild();
+            }
+            startLine = ast.getLineNo();
+            startColumn = ast.getColumnNo();
+        }
+
+        final DetailAST identAST =
+                aDefinitionAST.findFirstToken(TokenTypes.IDENT);
+        final String[] lines = getLines();
+
+        final StringBuilder builder = new StringBuilder();
+        for (int line = startLine; line <= identAST.getLineNo(); line++) {
+            String text = lines[line - 1];
+            if (line == identAST.getLineNo()) {
+                text = text.substring(0, identAST.getColumnNo() + 1);
+            }
+            if (line == startLine) {
+                text = text.substring(startColumn);
+            }
+            builder.append(text);
+            if (line < identAST.getLineNo()) {
+                builder.append('\n');
+            }
+        }
+
+        return builder.toString();
+    }
+
+    @Override
+    public void visitToken(DetailAST aAST)
+    {
+        if (ScopeUtils.isLocalVariableDef(aAST)) {
+            return;
+        }
+        final String format = getFormatOf(aAST);
+        final int flags = getRegexp().flags();
+        final String text = getTargetText(aAST);
+        final boolean exists =
+                Pattern.compile(format, flags).matcher(text).find();
+        final String ident =
+                aAST.findFirstToken(TokenTypes.IDENT).getText();
+
+        final boolean isPackage =
+                !ScopeUtils.inInterfaceOrAnnotationBlock(aAST)
+                && ScopeUtils.getScopeFromMods(aAST.findFirstToken(
+                        TokenTypes.MODIFIERS)) == Scope.PACKAGE;
+
+        if (!isPackage) {
+            if (exists) {
+                log(aAST.getLineNo(),
+                        "packageVisibilityComment.modifierExists", ident);
+            }
+        }
+        else if (mCheckEffectiveVisibility && isHiddenFromPackage(aAST)) {
+            return;
+        }
+        else if (!mRequireLatterWhiteSpace) {
+            if (!exists) {
+                log(aAST.getLineNo(), "noPackageVisibilityComment", ident);
+            }
+        }
+        else if (!Pattern.compile("(?:" + format + ")\\s+", flags).
+                matcher(text).find())
+        {
+            log(aAST.getLineNo(), exists
+                    ? "packageVisibilityComment.noLetterWhiteSpace"
+                    : "noPackageVisibilityComment",
+                    ident);
+        }
+    }
+}
@@ -0,0 +1,218 @@
+/* Commented package visibility check (Checkstyle plugin)
+    Copyright (C) 2012  Keita Kita
+
+    This library is free software; you can redistribute it and/or
+    modify it under the terms of the GNU Lesser General Public
+    License as published by the Free Software Foundation; either
+    version 2.1 of the License, or (at your option) any later version.
+
+    This library is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+    Lesser General Public License for more details.
+
+    You should have received a copy of the GNU Lesser General Public
+    License along with this library; if not, write to the Free Software
+    Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+package com.github.mikanbako.checkstyle.commentedpackagevisibilitycheck;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import junit.framework.Assert;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * Test class for {@link ShardPartitioner}.
+ *
+ * @author Keita Kita
+ */
+public class ShardPartitionerTest
+{
+    /**
+     * Count of test files.
+     */
+    private static final int FILE_COUNT = 20;
+
+    /**
+     * Count of shards.
+     */
+    private static final int SHARD_COUNT = 3;
+
+    /**
+     * Size of a block of test files.
+     */
+    private static final int BLOCK_SIZE = 100;
+
+    /**
+     * Multiplier to vary the count of blocks of test files.
+     */
+    private static final int BLOCK_COUNT_MULTIPLIER = 7;
+
+    /**
+     * Modulus to vary the count of blocks of test files.
+     */
+    private static final int BLOCK_COUNT_MODULUS = 11;
+
+    /**
+     * Folder to write test files.
+     */
+    private final TemporaryFolder mFolder = new TemporaryFolder();
+
+    /**
+     * Create the folder.
+     *
+     * @throws IOException If I/O error occurs.
+     */
+    @Before
+    public void setUp() throws IOException
+    {
+        mFolder.create();
+    }
+
+    /**
+     * Delete the folder.
+     */
+    @After
+    public void tearDown()
+    {
+        mFolder.delete();
+    }
+
+    /**
+     * Create files of various sizes.
+     *
+     * @return Created files.
+     * @throws IOException If I/O error occurs.
+     */
+    private List<File> createFiles() throws IOException
+    {
+        final List<File> files = new ArrayList<File>();
+        for (int i = 0; i < FILE_COUNT; i++) {
+            final File file = mFolder.newFile("File" + i + ".java");
+            final OutputStream out = new FileOutputStream(file);
+            try {
+                out.write(new byte[(i * BLOCK_COUNT_MULTIPLIER)
+                        % BLOCK_COUNT_MODULUS * BLOCK_SIZE]);
+            }
+            finally {
+                out.close();
+            }
+            files.add(file);
+        }
+
+        return files;
+    }
+
+    /**
+     * Test that shards cover all files without duplication.
+     *
+     * @throws Exception If Exception occurs.
+     */
+    @Test
+    public void testShardsCoverAllFiles() throws Exception
+    {
+        final List<File> files = createFiles();
+        final Set<File> selectedFiles = new HashSet<File>();
+        int selectedCount = 0;
+
+        for (int i = 1; i <= SHARD_COUNT; i++) {
+            final List<File> shardFiles = ShardPartitioner.select(
+                    files, mFolder.getRoot(), i, SHARD_COUNT);
+            Assert.assertFalse(shardFiles.isEmpty());
+
+            selectedFiles.addAll(shardFiles);
+            selectedCount += shardFiles.size();
+        }
+
+        Assert.assertEquals(new HashSet<File>(files), selectedFiles);
+        Assert.assertEquals(files.size(), selectedCount);
+    }
+
+    /**
+     * Test that assignment does not depend on order of files.
+     *
+     * @throws Exception If Exception occurs.
+     */
+    @Test
+    public void testAssignmentIsDeterministic() throws Exception
+    {
+        final List<File> files = createFiles();
+        final List<File> reversedFiles = new ArrayList<File>(files);
+        Collections.reverse(reversedFiles);
+
+        for (int i = 1; i <= SHARD_COUNT; i++) {
+            Assert.assertEquals(
+                    ShardPartitioner.select(
+                            files, mFolder.getRoot(), i, SHARD_COUNT),
+                    ShardPartitioner.select(
+                            reversedFiles, mFolder.getRoot(), i, SHARD_COUNT));
+        }
+    }
+
+    /**
+     * Test that assignment does not depend on contents of files.
+     *
+     * @throws Exception If Exception occurs.
+     */
+    @Test
+    public void testAssignmentDoesNotDependOnSize() throws Exception
+    {
+        final List<File> files = createFiles();
+        final List<List<File>> shards = new ArrayList<List<File>>();
+        for (int i = 1; i <= SHARD_COUNT; i++) {
+            shards.add(ShardPartitioner.select(
+                    files, mFolder.getRoot(), i, SHARD_COUNT));
+        }
+
+        // For example, line terminators differ between executors.
+        for (File file : files) {
+            final OutputStream out = new FileOutputStream(file, true);
+            try {
+                out.write(new byte[(int) file.length() + 1]);
+            }
+            finally {
+                out.close();
+            }
+        }
+
+        for (int i = 1; i <= SHARD_COUNT; i++) {
+            Assert.assertEquals(shards.get(i - 1), ShardPartitioner.select(
+                    files, mFolder.getRoot(), i, SHARD_COUNT));
+        }
+    }
+
+    /**
+     * Test that invalid shard is rejected.
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public void testInvalidShard()
+    {
+        ShardPartitioner.select(Collections.<File>emptyList(),
+                mFolder.getRoot(), SHARD_COUNT + 1, SHARD_COUNT);
+    }
+
+    /**
+     * Test relative path.
+     */
+    @Test
+    public void testToRelativePath()
+    {
+        final File base = mFolder.getRoot();
+
+        Assert.assertEquals("sub/Foo.java", ShardPartitioner.toRelativePath(
+                base, new File(new File(base, "sub"), "Foo.java")));
+    }
+}
@@ -0,0 +1,210 @@
+/* Commented package visibility check (Checkstyle plugin)
+    Copyright (C) 2012  Keita Kita
+
+    This library is free software; you can redistribute it and/or
+    modify it under the terms of the GNU Lesser General Public
+    License as published by the Free Software Foundation; either
+    version 2.1 of the License, or (at your option) any later version.
+
+    This library is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+    Lesser General Public License for more details.
+
+    You should have received a copy of the GNU Lesser General Public
+    License along with this library; if not, write to the Free Software
+    Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+package com.github.mikanbako.checkstyle.commentedpackagevisibilitycheck;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import junit.framework.Assert;
+
+import org.junit.Test;
+
+import com.puppycrawl.tools.checkstyle.Checker;
+import com.puppycrawl.tools.checkstyle.XMLLogger;
+import com.puppycrawl.tools.checkstyle.api.LocalizedMessage;
+import com.puppycrawl.tools.checkstyle.api.SeverityLevel;
+
+/**
+ * Test class for {@link ShardResult}.
+ *
+ * @author Keita Kita
+ */
+public class ShardResultTest
+{
+    /**
+     * Property name of test inputs directory.
+     */
+    private static final String PROPERTY_TEST_INPUTS_DIRECTORY =
+            "testinputs.dir";
+
+    /**
+     * Count of shards.
+     */
+    private static final int SHARD_COUNT = 2;
+
+    /**
+     * Line number of the test violation.
+     */
+    private static final int VIOLATION_LINE = 3;
+
+    /**
+     * Write and read the result.
+     *
+     * @param aResult Result to write.
+     * @return Read result.
+     * @throws IOException If I/O error occurs.
+     */
+    private static ShardResult writeAndRead(ShardResult aResult)
+        throws IOException
+    {
+        final StringWriter writer = new StringWriter();
+        aResult.write(writer);
+
+        return ShardResult.read(new StringReader(writer.toString()));
+    }
+
+    /**
+     * Write the result as XML report.
+     *
+     * @param aResult Result to write.
+     * @return XML report.
+     */
+    private static String toXml(ShardResult aResult)
+    {
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        CommentedPackageVisibilityShardMerger.report(
+                aResult, new XMLLogger(out, true));
+
+        return out.toString();
+    }
+
+    /**
+     * Test that violations and exceptions are restored.
+     *
+     * @throws Exception If Exception occurs.
+     */
+    @Test
+    public void testWriteAndRead() throws Exception
+    {
+        final ShardResult result = new ShardResult(2, SHARD_COUNT);
+        result.addViolations("dir/Tab\tFile.java", Arrays.asList(
+                new LocalizedMessage(VIOLATION_LINE, 0, "messages", "key",
+                        new Object[] {"'a'\nb\\c"}, SeverityLevel.WARNING,
+                        "id", CommentedPackageVisibilityCheck.class, "{0}")));
+        result.addViolations("Empty.java",
+                Collections.<LocalizedMessage>emptyList());
+        result.addException("Broken.java", "Exception\tdescription");
+
+        final ShardResult readResult = writeAndRead(result);
+
+        Assert.assertEquals(2, readResult.getIndex());
+        Assert.assertEquals(SHARD_COUNT, readResult.getCount());
+        Assert.assertEquals(result.getViolations().keySet(),
+                readResult.getViolations().keySet());
+        Assert.assertEquals(result.getExceptions(),
+                readResult.getExceptions());
+
+        final LocalizedMessage message = readResult.getViolations().get(
+                "dir/Tab\tFile.java").first();
+        Assert.assertEquals(VIOLATION_LINE, message.getLineNo());
+        Assert.assertEquals("'a'\nb\\c", message.getMessage());
+        Assert.assertEquals("key", message.getKey());
+        Assert.assertEquals("id", message.getModuleId());
+        Assert.assertEquals(SeverityLevel.WARNING, message.getSeverityLevel());
+        Assert.assertEquals(CommentedPackageVisibilityCheck.class.getName(),
+                message.getSourceName());
+    }
+
+    /**
+     * Test that merged report of shards is the same as report of
+     * one audit.
+     *
+     * @throws Exception If Exception occurs.
+     */
+    @Test
+    public void testMergedReportIsSameAsOneAudit() throws Exception
+    {
+        final File testInputsDirectory =
+                new File(System.getProperty(PROPERTY_TEST_INPUTS_DIRECTORY));
+        final List<File> files = new ArrayList<File>();
+        for (File file : testInputsDirectory.listFiles()) {
+            if (file.isFile()) {
+                files.add(file.getAbsoluteFile());
+            }
+        }
+
+        final Checker checker = CheckerFactory.create(
+                CheckerFactory.createDefaultConfiguration());
+        checker.setBasedir(testInputsDirectory.getAbsolutePath());
+
+        final List<ShardResult> results = new ArrayList<ShardResult>();
+        for (int i = SHARD_COUNT; i >= 1; i--) {
+            results.add(writeAndRead(CommentedPackageVisibilityShardRunner.
+                    audit(checker, ShardPartitioner.select(
+                            files, testInputsDirectory, i, SHARD_COUNT),
+                            i, SHARD_COUNT)));
+        }
+        final ShardResult oneAuditResult = writeAndRead(
+                CommentedPackageVisibilityShardRunner.audit(
+                        checker, files, 1, 1));
+        checker.destroy();
+
+        Assert.assertEquals(toXml(oneAuditResult),
+                toXml(ShardResult.merge(results)));
+    }
+
+    /**
+     * Test that results cannot be merged if a shard is missing.
+     *
+     * @throws Exception If Exception occurs.
+     */
+    @Test(expected = IOException.class)
+    public void testMergeWithMissingShard() throws Exception
+    {
+        ShardResult.merge(Collections.singletonList(
+                new ShardResult(1, SHARD_COUNT)));
+    }
+
+    /**
+     * Test that results cannot be merged if a shard is duplicated.
+     *
+     * @throws Exception If Exception occurs.
+     */
+    @Test(expected = IOException.class)
+    public void testMergeWithDuplicatedShard() throws Exception
+    {
+        ShardResult.merge(Arrays.asList(new ShardResult(1, SHARD_COUNT),
+                new ShardResult(1, SHARD_COUNT)));
+    }
+
+    /**
+     * Test that only violations at error severity and exceptions are
+     * counted by the merger.
+     */
+    @Test
+    public void testReportCountsOnlyErrors()
+    {
+        final ShardResult result = new ShardResult(1, 1);
+        result.addViolations("Target.java", Arrays.asList(
+                Violations.create(1, 0, "key", "error", SeverityLevel.ERROR,
+                        null, CommentedPackageVisibilityCheck.class),
+                Violations.create(2, 0, "key", "info", SeverityLevel.INFO,
+                        null, CommentedPackageVisibilityCheck.class)));
+        result.addException("Broken.java", "Exception");
+
+        Assert.assertEquals(2, CommentedPackageVisibilityShardMerger.report(
+                result, new XMLLogger(new ByteArrayOutputStream(), true)));
+    }
+}
@@ -0,0 +1,519 @@
+/* Commented package visibility check (Checkstyle plugin)
+    Copyright (C) 2012  Keita Kita
+
+    This library is free software; you can redistribute it and/or
+    modify it under the terms of the GNU Lesser General Public
+    License as published by the Free Software Foundation; either
+    version 2.1 of the License, or (at your option) any later version.
+
+    This library is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+    Lesser General Public License for more details.
+
+    You should have received a copy of the GNU Lesser General Public
+    License along with this library; if not, write to the Free Software
+    Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+package com.github.mikanbako.checkstyle.commentedpackagevisibilitycheck;
+
+import static java.nio.file.StandardWatchEventKinds.ENTRY_CREATE;
+import static java.nio.file.StandardWatchEventKinds.ENTRY_DELETE;
+import static java.nio.file.StandardWatchEventKinds.ENTRY_MODIFY;
+import static java.nio.file.StandardWatchEventKinds.OVERFLOW;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.nio.file.Watchable;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import junit.framework.Assert;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * Test class for {@link WatchBatch}.
+ *
+ * @author Keita Kita
+ */
+public class WatchBatchTest
+{
+    /**
+     * Debounce time, which is ignored by {@link FakeWatchService}.
+     */
+    private static final long DEBOUNCE_MILLIS = 300;
+
+    /**
+     * Source of a class that has a violation.
+     */
+    private static final String VIOLATED_SOURCE = "class Target\n{\n}\n";
+
+    /**
+     * Folder to write test sources.
+     */
+    private final TemporaryFolder mFolder = new TemporaryFolder();
+
+    /**
+     * Auditor to apply batches.
+     */
+    private IncrementalAuditor mAuditor;
+
+    /**
+     * Event of watch service.
+     *
+     * @param <T> Type of the context.
+     */
+    private static final class FakeEvent<T> implements WatchEvent<T>
+    {
+        /**
+         * Kind of the event.
+         */
+        private final Kind<T> mKind;
+
+        /**
+         * Path relative to the watched directory.
+         */
+        private final T mContext;
+
+        /**
+         * Constructor.
+         *
+         * @param aKind Kind of the event.
+         * @param aContext Path relative to the watched directory.
+         */
+        private FakeEvent(Kind<T> aKind, T aContext)
+        {
+            mKind = aKind;
+            mContext = aContext;
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        public Kind<T> kind()
+        {
+            return mKind;
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        public int count()
+        {
+            return 1;
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        public T context()
+        {
+            return mContext;
+        }
+    }
+
+    /**
+     * Key of watch service that holds events given beforehand.
+     */
+    private static final class FakeWatchKey implements WatchKey
+    {
+        /**
+         * Events to poll.
+         */
+        private final List<WatchEvent<?>> mEvents;
+
+        /**
+         * Whether the key is valid after reset.
+         */
+        private final boolean mValid;
+
+        /**
+         * Constructor.
+         *
+         * @param aValid Whether the key is valid after reset.
+         * @param aEvents Events to poll.
+         */
+        private FakeWatchKey(boolean aValid, WatchEvent<?>... aEvents)
+        {
+            mValid = aValid;
+            mEvents = new ArrayList<WatchEvent<?>>(Arrays.asList(aEvents));
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        public boolean isValid()
+        {
+            return mValid;
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        public List<WatchEvent<?>> pollEvents()
+        {
+            final List<WatchEvent<?>> events =
+                    new ArrayList<WatchEvent<?>>(mEvents);
+            mEvents.clear();
+
+            return events;
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        public boolean reset()
+        {
+            return mValid;
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        public void cancel()
+        {
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        public Watchable watchable()
+        {
+            return null;
+        }
+    }
+
+    /**
+     * Watch service that returns keys given beforehand.
+     *
+     * Polling with timeout returns null when no key is left,
+     * as if the debounce time passed.
+     */
+    private static final class FakeWatchService implements WatchService
+    {
+        /**
+         * Keys to return.
+         */
+        private final Queue<WatchKey> mKeys = new LinkedList<WatchKey>();
+
+        /**
+         * Constructor.
+         *
+         * @param aKeys Keys to return.
+         */
+        private FakeWatchService(WatchKey... aKeys)
+        {
+            mKeys.addAll(Arrays.asList(aKeys));
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        public void close()
+        {
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        public WatchKey poll()
+        {
+            return mKeys.poll();
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        public WatchKey poll(long aTimeout, TimeUnit aUnit)
+        {
+            return mKeys.poll();
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        public WatchKey take() throws InterruptedException
+        {
+            if (mKeys.isEmpty()) {
+                throw new InterruptedException();
+            }
+
+            return mKeys.remove();
+        }
+    }
+
+    /**
+     * Create the folder and the auditor.
+     *
+     * @throws Exception If Exception occurs.
+     */
+    @Before
+    public void setUp() throws Exception
+    {
+        mFolder.create();
+        mAuditor = new IncrementalAuditor(CheckerFactory.create(
+                CheckerFactory.createDefaultConfiguration()));
+    }
+
+    /**
+     * Delete the folder.
+     */
+    @After
+    public void tearDown()
+    {
+        mFolder.delete();
+    }
+
+    /**
+     * Write source to the file.
+     *
+     * @param aFile File to write.
+     * @param aSource Source to write.
+     * @throws IOException If I/O error occurs.
+     */
+    private static void write(File aFile, String aSource) throws IOException
+    {
+        final Writer writer = new OutputStreamWriter(
+                new FileOutputStream(aFile), "UTF-8");
+        try {
+            writer.write(aSource);
+        }
+        finally {
+            writer.close();
+        }
+    }
+
+    /**
+     * Create an event.
+     *
+     * @param aKind Kind of the event.
+     * @param aFile File of the event.
+     * @return Event.
+     */
+    private static WatchEvent<Path> event(WatchEvent.Kind<Path> aKind,
+            File aFile)
+    {
+        return new FakeEvent<Path>(aKind, Paths.get(aFile.getName()));
+    }
+
+    /**
+     * Collect a batch from keys of the directory.
+     *
+     * @param aDirectory Watched directory of all keys.
+     * @param aKeys Keys to collect.
+     * @return Collected batch.
+     * @throws InterruptedException If no key is given.
+     */
+    private static WatchBatch collect(File aDirectory, WatchKey... aKeys)
+        throws InterruptedException
+    {
+        final Map<WatchKey, Path> directories = new HashMap<WatchKey, Path>();
+        for (WatchKey key : aKeys) {
+            directories.put(key, aDirectory.toPath());
+        }
+
+        return WatchBatch.collect(
+                new FakeWatchService(aKeys), directories, DEBOUNCE_MILLIS);
+    }
+
+    /**
+     * Get names of files whose violations are changed.
+     *
+     * @param aDeltas Differences of violations.
+     * @return Names of files.
+     */
+    private static Set<String> getFileNames(List<ViolationDelta> aDeltas)
+    {
+        final Set<String> fileNames = new LinkedHashSet<String>();
+        for (ViolationDelta delta : aDeltas) {
+            fileNames.add(delta.getFileName());
+        }
+
+        return fileNames;
+    }
+
+    /**
+     * Test that events are merged until they stop for the debounce time,
+     * and keys that are no longer valid are removed.
+     *
+     * @throws Exception If Exception occurs.
+     */
+    @Test
+    public void testCollectMergesEvents() throws Exception
+    {
+        final File directory = mFolder.getRoot();
+        final File first = new File(directory, "First.java");
+        final File second = new File(directory, "Second.java");
+        write(first, VIOLATED_SOURCE);
+        write(second, VIOLATED_SOURCE);
+
+        final WatchKey validKey = new FakeWatchKey(true,
+                event(ENTRY_CREATE, first), event(ENTRY_MODIFY, first));
+        final WatchKey invalidKey = new FakeWatchKey(false,
+                event(ENTRY_MODIFY, first), event(ENTRY_MODIFY, second),
+                event(ENTRY_MODIFY, new File(directory, "README.txt")));
+        final Map<WatchKey, Path> directories = new HashMap<WatchKey, Path>();
+        directories.put(validKey, directory.toPath());
+        directories.put(invalidKey, directory.toPath());
+
+        final WatchBatch batch = WatchBatch.collect(
+                new FakeWatchService(validKey, invalidKey),
+                directories, DEBOUNCE_MILLIS);
+        Assert.assertEquals(Collections.singleton(validKey),
+                directories.keySet());
+        Assert.assertFalse(batch.isOverflowed());
+
+        final List<ViolationDelta> deltas =
+                batch.apply(mAuditor, Collections.<File>emptySet());
+        Assert.assertEquals(2, deltas.size());
+        Assert.assertEquals(new LinkedHashSet<String>(Arrays.asList(
+                first.getAbsolutePath(), second.getAbsolutePath())),
+                getFileNames(deltas));
+    }
+
+    /**
+     * Test that a file modified and then deleted is removed.
+     *
+     * @throws Exception If Exception occurs.
+     */
+    @Test
+    public void testDeleteAfterModify() throws Exception
+    {
+        final File directory = mFolder.getRoot();
+        final File file = new File(directory, "Target.java");
+        write(file, VIOLATED_SOURCE);
+        mAuditor.audit(Collections.singletonList(file));
+
+        Assert.assertTrue(file.delete());
+        final List<ViolationDelta> deltas = collect(directory,
+                new FakeWatchKey(true, event(ENTRY_MODIFY, file)),
+                new FakeWatchKey(true, event(ENTRY_DELETE, file))).
+            apply(mAuditor, Collections.<File>emptySet());
+        Assert.assertEquals(1, deltas.size());
+        Assert.assertEquals(file.getAbsolutePath(),
+                deltas.get(0).getFileName());
+        Assert.assertEquals(1, deltas.get(0).getRemoved().size());
+        Assert.assertTrue(deltas.get(0).getAdded().isEmpty());
+        Assert.assertTrue(mAuditor.getFileNames().isEmpty());
+    }
+
+    /**
+     * Test that a file deleted after its modify event is removed
+     * even if the delete event is not collected yet.
+     *
+     * @throws Exception If Exception occurs.
+     */
+    @Test
+    public void testModifiedFileDeletedBeforeApply() throws Exception
+    {
+        final File directory = mFolder.getRoot();
+        final File file = new File(directory, "Target.java");
+        write(file, VIOLATED_SOURCE);
+        mAuditor.audit(Collections.singletonList(file));
+
+        final WatchBatch batch = collect(directory,
+                new FakeWatchKey(true, event(ENTRY_MODIFY, file)));
+        Assert.assertTrue(file.delete());
+
+        final List<ViolationDelta> deltas =
+                batch.apply(mAuditor, Collections.<File>emptySet());
+        Assert.assertEquals(1, deltas.size());
+        Assert.assertEquals(1, deltas.get(0).getRemoved().size());
+        Assert.assertTrue(mAuditor.getFileNames().isEmpty());
+    }
+
+    /**
+     * Test that a file deleted and then created again is audited.
+     *
+     * @throws Exception If Exception occurs.
+     */
+    @Test
+    public void testCreateAfterDelete() throws Exception
+    {
+        final File directory = mFolder.getRoot();
+        final File file = new File(directory, "Target.java");
+        write(file, VIOLATED_SOURCE);
+
+        final List<ViolationDelta> deltas = collect(directory,
+                new FakeWatchKey(true,
+                        event(ENTRY_DELETE, file), event(ENTRY_CREATE, file))).
+            apply(mAuditor, Collections.<File>emptySet());
+        Assert.assertEquals(1, deltas.size());
+        Assert.assertEquals(1, deltas.get(0).getAdded().size());
+        Assert.assertEquals(Collections.singleton(file.getAbsolutePath()),
+                mAuditor.getFileNames());
+    }
+
+    /**
+     * Test that created directories are collected.
+     *
+     * @throws Exception If Exception occurs.
+     */
+    @Test
+    public void testCreatedDirectory() throws Exception
+    {
+        final File directory = mFolder.getRoot();
+        final File created = mFolder.newFolder("created");
+
+        final WatchBatch batch = collect(directory,
+                new FakeWatchKey(true, event(ENTRY_CREATE, created)));
+        Assert.assertEquals(Collections.singleton(created.toPath()),
+                batch.getCreatedDirectories());
+        Assert.assertTrue(
+                batch.apply(mAuditor, Collections.<File>emptySet()).isEmpty());
+    }
+
+    /**
+     * Test that files missing from the rescan are removed,
+     * and existing files are audited, when events were lost.
+     *
+     * @throws Exception If Exception occurs.
+     */
+    @Test
+    public void testOverflow() throws Exception
+    {
+        final File directory = mFolder.getRoot();
+        final File kept = new File(directory, "Kept.java");
+        final File deleted = new File(directory, "Deleted.java");
+        final File created = new File(directory, "Created.java");
+        write(kept, VIOLATED_SOURCE);
+        write(deleted, VIOLATED_SOURCE);
+        mAuditor.audit(Arrays.asList(kept, deleted));
+
+        Assert.assertTrue(deleted.delete());
+        write(created, VIOLATED_SOURCE);
+        final WatchBatch batch = collect(directory, new FakeWatchKey(true,
+                new FakeEvent<Object>(OVERFLOW, null)));
+        Assert.assertTrue(batch.isOverflowed());
+
+        final List<ViolationDelta> deltas = batch.apply(mAuditor,
+                new LinkedHashSet<File>(Arrays.asList(kept, created)));
+        Assert.assertEquals(new LinkedHashSet<String>(Arrays.asList(
+                deleted.getAbsolutePath(), created.getAbsolutePath())),
+                getFileNames(deltas));
+        Assert.assertEquals(new LinkedHashSet<String>(Arrays.asList(
+                kept.getAbsolutePath(), created.getAbsolutePath())),
+                mAuditor.getFileNames());
+    }
+}
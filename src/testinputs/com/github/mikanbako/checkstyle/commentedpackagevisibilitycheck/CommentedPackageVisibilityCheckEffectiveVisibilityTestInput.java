@@ -0,0 +1,70 @@
+package com.github.mikanbako.checkstyle.commentedpackagevisibilitycheck;
+
+/* package */ class CommentedPackageVisibilityCheckEffectiveVisibilityTestInput
+{
+    private class PrivateClass
+    {
+        int fieldInPrivateClass;
+
+        /* package */ public void invalidCommentedMethodInPrivateClass()
+        {
+
+        }
+
+        class ClassInPrivateClass
+        {
+            void methodInClassInPrivateClass()
+            {
+
+            }
+        }
+    }
+
+    protected class ProtectedClass
+    {
+        int fieldInProtectedClass;
+
+        private class PrivateClassInProtectedClass
+        {
+            void methodInPrivateClass()
+            {
+
+            }
+        }
+    }
+
+    /* package */ class PackageClass
+    {
+        int fieldInPackageClass;
+    }
+
+    public void anonymousClassContainedMethod()
+    {
+        new Object() {
+            int fieldInAnonymousClass;
+        };
+
+        class LocalClass
+        {
+            void methodInLocalClass()
+            {
+
+            }
+        }
+    }
+
+    /* package */ enum PackageEnum
+    {
+        CONSTANT {
+            void methodInEnumConstant()
+            {
+
+            }
+        };
+
+        void methodInEnum()
+        {
+
+        }
+    }
+}
@@ -0,0 +1,47 @@
+package com.github.mikanbako.checkstyle.commentedpackagevisibilitycheck;
+
+/* package */ class CommentedPackageVisibilityCheckPerKindFormatTestInput
+{
+    /* package */ class CommentedPackageVisibilityClass
+    {
+
+    }
+
+    /* pkg */ interface OtherFormatInterface
+    {
+
+    }
+
+    /* pkg */ int commentedPackageVisibilityField;
+
+    /* package */ int otherFormatField;
+
+    /* pkg */ protected int invalidCommentedPackageVisibilityField;
+
+    /* package */ public int otherFormatPublicField;
+
+    /* package */ CommentedPackageVisibilityCheckPerKindFormatTestInput()
+    {
+
+    }
+
+    /* pkg */ CommentedPackageVisibilityCheckPerKindFormatTestInput(int parameter)
+    {
+
+    }
+
+    /* pkg */ void commentedPackageVisibilityMethod()
+    {
+
+    }
+
+    /* package */ void otherFormatMethod()
+    {
+
+    }
+
+    /* pkg */ public void invalidCommentedPackageVisibilityMethod()
+    {
+
+    }
+}
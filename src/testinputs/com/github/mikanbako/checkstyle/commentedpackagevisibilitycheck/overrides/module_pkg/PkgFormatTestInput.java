@@ -0,0 +1,10 @@
+package com.github.mikanbako.checkstyle.commentedpackagevisibilitycheck;
+
+/* pkg */ class PkgFormatTestInput
+{
+    /* package */ int commentedWithOtherFormatField;
+
+    /* pkg */int commentedWithoutWhiteSpaceField;
+
+    /* pkg */ int commentedField;
+}
@@ -0,0 +1,10 @@
+package com.github.mikanbako.checkstyle.commentedpackagevisibilitycheck;
+
+/* pkg */ class PkgFormatWithoutWhiteSpaceTestInput
+{
+    /* package */ int commentedWithOtherFormatField;
+
+    /* pkg */int commentedWithoutWhiteSpaceField;
+
+    /* pkg */ int commentedField;
+}
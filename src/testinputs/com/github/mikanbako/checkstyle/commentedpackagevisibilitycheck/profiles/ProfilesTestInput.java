@@ -0,0 +1,12 @@
+package com.github.mikanbako.checkstyle.commentedpackagevisibilitycheck;
+
+/* package */ class ProfilesTestInput
+{
+    /* package */ int currentField;
+
+    /* package-private */int migratedField;
+
+    /* package */int noWhiteSpaceField;
+
+    public /* package-private */ int publicField;
+}